@@ -8,4 +8,4 @@ for i in `ls ../lib/*.jar`
     THE_CLASSPATH=${THE_CLASSPATH}:${i}
 done
 
-java -cp ".:${THE_CLASSPATH}" $PROGRAM_NAME $1
+java -cp ".:${THE_CLASSPATH}" $PROGRAM_NAME $1 $2
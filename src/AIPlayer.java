@@ -2,11 +2,10 @@ import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Random;
 
 /**
  * Represents an AI Player, with 4 options for selecting moves.
- * 1. Monte-Carlo Tree Search
+ * 1. Monte-Carlo Tree Search, optionally with RAVE
  * 2. Limit Opponents move options heuristic
  * 3. Combinatorial Game Theory evaluation
  * 4. Random Choice
@@ -15,6 +14,12 @@ public class AIPlayer extends Player implements Serializable {
 
     private static final long serialVersionUID = 4L;
     String AIType;
+    int numberOfSearchThreads = 1; // number of threads used by the monte-carlo tree search
+    private transient MCTS mcts; // kept between moves, so the search tree can be reused
+    private transient SearchLimits searchLimits; // limits on each monte-carlo tree search, 5 seconds if not set
+    boolean pondering; // searches the opponent's replies while they think
+    boolean solver; // marks and propagates proven wins and losses in the monte-carlo tree search
+    boolean puct; // chooses monte-carlo tree search children using heuristic move priors, rather than UCB
 
     public AIPlayer(boolean white){
         super(white, false);
@@ -31,6 +36,41 @@ public class AIPlayer extends Player implements Serializable {
         this.AIType = AIType;
     }
 
+    public void setNumberOfSearchThreads(int numberOfSearchThreads){
+
+        this.numberOfSearchThreads = numberOfSearchThreads;
+    }
+
+    public void setSearchLimits(SearchLimits searchLimits){
+
+        this.searchLimits = searchLimits;
+    }
+
+    public void setPondering(boolean pondering){
+
+        this.pondering = pondering;
+    }
+
+    public void setSolver(boolean solver){
+
+        this.solver = solver;
+    }
+
+    public void setPuct(boolean puct){
+
+        this.puct = puct;
+    }
+
+    /**
+     * Stops searching the opponent's replies, if the last monte-carlo move started pondering
+     */
+    public void stopPondering(){
+
+        if(mcts != null){
+            mcts.stopPondering();
+        }
+    }
+
     /**
      * Returns a move chosen using a monte-carlo tree search strategy
      * @param board current board
@@ -38,10 +78,30 @@ public class AIPlayer extends Player implements Serializable {
      */
     public Move getMonteCarloMove(Board board){
 
-        MCTS mcts = new MCTS();
+        // the same MCTS object is used every turn, so it carries on from the last move's tree
+        if(mcts == null){
+            mcts = new MCTS();
+        }
+
+        mcts.setNumberOfThreads(numberOfSearchThreads);
+        mcts.rave = AIType.equals("rave");
+        mcts.solver = solver;
+        mcts.puct = puct;
         //mcts.heuristicOptimisation = true;
 
-        return mcts.getNextMove(board, this.isWhite(), 5);
+        Move move;
+
+        if(searchLimits == null){
+            move = mcts.getNextMove(board, this.isWhite(), 5);
+        } else {
+            move = mcts.getNextMove(board, this.isWhite(), searchLimits);
+        }
+
+        // searching from the board after our move while the opponent thinks, carrying on from it next turn
+        if(pondering && move != null){
+            mcts.startPondering(board.playMove(move), !this.isWhite());
+        }
+        return move;
     }
 
     /**
@@ -51,25 +111,43 @@ public class AIPlayer extends Player implements Serializable {
      */
     public Move getHeuristicMove(Board board){
 
-        ArrayList<Move> validMoves = super.getValidMoves(board);
+        int bestMove = getHeuristicMove(BitBoard.fromBoard(board));
+
+        if(bestMove == -1){
+            return null;
+        }
+        return MoveGenerator.toMove(bestMove, board, this);
+    }
+
+    /**
+     * Returns a packed move chosen using the strategy of giving the opponent the least
+     * move options, playing and undoing each move on the bit board given
+     * @param bitBoard current board, left unchanged once the method returns
+     * @return selected packed move, or -1 if there are no valid moves
+     */
+    public int getHeuristicMove(BitBoard bitBoard){
+
+        MoveGenerator moveGenerator = new MoveGenerator();
+
+        int noOfMoves = moveGenerator.generateMoves(bitBoard, this.isWhite());
 
-        int counter = 1;
         int minOpponentMoves = 0;
-        Move bestMove = null;
+        int bestMove = -1;
 
         // standard finding min algorithm used
-        for(Move move: validMoves){
+        for(int i = 0; i < noOfMoves; i++){
 
-            Board newBoard = board.playMove(move);
+            int move = moveGenerator.getMove(i);
 
-            int opponentMoves = newBoard.getAllPossibleMoves(!this.isWhite()).size();
+            bitBoard.make(move);
+            int opponentMoves = bitBoard.countMoves(!this.isWhite());
+            bitBoard.unmake();
 
-            if(counter == 1 || opponentMoves < minOpponentMoves){
+            if(i == 0 || opponentMoves < minOpponentMoves){
 
                 minOpponentMoves = opponentMoves;
                 bestMove = move;
             }
-            counter++;
         }
 
         return bestMove;
@@ -114,8 +192,19 @@ public class AIPlayer extends Player implements Serializable {
      */
     public Move getRandomMove(ArrayList<Move> moves){
 
-        Random rand = new Random();
-        return moves.get(rand.nextInt(moves.size()));
+        return moves.get(RandomSource.current().nextInt(moves.size()));
+    }
+
+    /**
+     * Returns a uniformly random move, sampled without generating every move,
+     * so that a Move object is only built for the chosen move
+     * @param board current board
+     * @return selected move
+     */
+    private Move getRandomMove(Board board){
+
+        int move = new MoveSampler().sampleMove(BitBoard.fromBoard(board), this.isWhite(), RandomSource.current());
+        return MoveGenerator.toMove(move, board, this);
     }
 
     /**
@@ -126,17 +215,16 @@ public class AIPlayer extends Player implements Serializable {
     @Override
     public Move getMove(Board board){
 
-        ArrayList<Move> validMoves = super.getValidMoves(board);
-
-        if(validMoves.isEmpty()){
+        if(!board.hasAnyMove(this.isWhite())){
 
+            stopPondering();
             return null;
 
         } else {
 
             System.out.println("AI is thinking");
 
-            if(AIType.equals("mcts")){
+            if(AIType.equals("mcts") || AIType.equals("rave")){
 
                 return getMonteCarloMove(board);
 
@@ -150,12 +238,12 @@ public class AIPlayer extends Player implements Serializable {
 
             } else if(AIType.equals("random")) {
 
-                return getRandomMove(validMoves);
+                return getRandomMove(board);
 
             } else {
 
                 // When no AI type specified, default is random
-                return getRandomMove(validMoves);
+                return getRandomMove(board);
             }
 
 
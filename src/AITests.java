@@ -1,6 +1,8 @@
 import org.junit.Before;
 import org.junit.Test;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import static org.junit.Assert.*;
 
 /**
@@ -137,6 +139,921 @@ public class AITests {
 
     }
 
+    /**
+     * Testing that MCTS still returns a valid move when several threads search the
+     * same tree, that selection adds a virtual loss to each node on the way, and that
+     * every virtual loss has been removed again once the search has finished
+     */
+    @Test
+    public void testParallelMonteCarloMove(){
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(400);
+
+        AIPlayer blackPlayer = new AIPlayer(false);
+        blackPlayer.setAIType("mcts");
+        blackPlayer.setNumberOfSearchThreads(4);
+        blackPlayer.setSearchLimits(limits);
+        blackPlayer.addPieces(blackPieces);
+        Move blackMove = blackPlayer.getMove(board);
+
+        MCTS mcts = new MCTS();
+        mcts.setNumberOfThreads(4);
+        Move whiteMove = mcts.getNextMove(board, true, limits);
+
+        assertTrue(isMoveValid(blackMove, false));
+        assertTrue(isMoveValid(whiteMove, true));
+        assertTrue(mcts.getNumberOfPlayouts() > 0);
+
+        NodePool pool = mcts.getLastTree();
+
+        for(int node = 0; node < pool.getSize(); node++){
+            assertEquals(0, pool.getVirtualLoss(node));
+        }
+
+        int leaf = mcts.selectPromisingNode(pool, BitBoard.fromBoard(board));
+
+        assertNotEquals(0, leaf);
+
+        for(int node = leaf; node != -1; node = pool.getParent(node)){
+            assertEquals(1, pool.getVirtualLoss(node));
+        }
+    }
+
+    /**
+     * Testing that MCTS returns a valid move when each
+     * thread searches its own tree, and the trees are combined
+     */
+    @Test
+    public void testRootParallelMonteCarloMove(){
+
+        MCTS mcts = new MCTS();
+        mcts.setNumberOfThreads(4);
+        mcts.rootParallelisation = true;
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(400);
+
+        Move blackMove = mcts.getNextMove(board, false, limits);
+        Move whiteMove = mcts.getNextMove(board, true, limits);
+
+        assertTrue(isMoveValid(blackMove, false));
+        assertTrue(isMoveValid(whiteMove, true));
+    }
+
+    /**
+     * Testing that root parallel trees are combined by adding up the win scores of each
+     * move across the trees, that a move proven to win in any tree is chosen, and that a
+     * move proven to lose is only chosen when every move is a proven loss
+     */
+    @Test
+    public void testMergedMoveWithMaxScore(){
+
+        BitBoard bitBoard = BitBoard.fromBoard(board);
+        MoveGenerator moveGenerator = new MoveGenerator();
+        int[] moves = Arrays.copyOf(moveGenerator.getMoves(), moveGenerator.generateMoves(bitBoard, false));
+        MCTS mcts = new MCTS();
+
+        // neither tree's best move is the best combined move
+        NodePool firstTree = getRootTree(moves, new double[]{3, 2, 0});
+        NodePool secondTree = getRootTree(moves, new double[]{0, 2, 2.5});
+
+        assertEquals(moves[1], mcts.getMergedMoveWithMaxScore(new NodePool[]{firstTree, secondTree}, bitBoard));
+
+        firstTree.setProof(firstTree.getFirstChild(0) + 1, NodePool.PROVEN_LOSS);
+
+        assertEquals(moves[0], mcts.getMergedMoveWithMaxScore(new NodePool[]{firstTree, secondTree}, bitBoard));
+
+        secondTree.setProof(secondTree.getFirstChild(0) + 2, NodePool.PROVEN_WIN);
+
+        assertEquals(moves[2], mcts.getMergedMoveWithMaxScore(new NodePool[]{firstTree, secondTree}, bitBoard));
+
+        for(int child = 0; child < 3; child++){
+            firstTree.setProof(firstTree.getFirstChild(0) + child, NodePool.PROVEN_LOSS);
+        }
+
+        assertEquals(moves[0], mcts.getMergedMoveWithMaxScore(new NodePool[]{firstTree}, bitBoard));
+    }
+
+    /**
+     * Builds a tree with just a root, and a child for each of the first moves given
+     * @param moves packed moves from the root
+     * @param winScores win score of each child, each visited 5 times
+     * @return node pool holding the tree
+     */
+    private NodePool getRootTree(int[] moves, double[] winScores){
+
+        NodePool pool = new NodePool(16);
+        pool.startExpansion(0);
+        pool.finishExpansion(0, moves, winScores.length);
+
+        for(double winScore: winScores){
+            pool.addVisits(pool.addChild(0, winScores.length), 5, winScore);
+        }
+
+        pool.addVisits(0, 5 * winScores.length, 0);
+        return pool;
+    }
+
+    /**
+     * Testing that MCTS returns a valid move when several playouts are simulated
+     * in parallel from each leaf, and every node's visit count grows by that many
+     * playouts each time a result is propagated through it
+     */
+    @Test
+    public void testLeafParallelMonteCarloMove(){
+
+        MCTS mcts = new MCTS();
+        mcts.setPlayoutsPerLeaf(4);
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(400);
+
+        Move blackMove = mcts.getNextMove(board, false, limits);
+
+        assertTrue(isMoveValid(blackMove, false));
+        assertEquals(0, mcts.getNumberOfPlayouts() % 4);
+
+        // each back propagation adds all 4 playouts to every node on the way to the root
+        NodePool pool = mcts.getLastTree();
+
+        assertEquals(mcts.getNumberOfPlayouts(), pool.getVisitCount(0));
+
+        for(int node = 0; node < pool.getSize(); node++){
+            assertEquals(0, pool.getVisitCount(node) % 4);
+        }
+    }
+
+    /**
+     * Testing that MCTS carries on from the tree it searched for
+     * the last move, after its own move and the opponent's reply
+     */
+    @Test
+    public void testMonteCarloTreeReuse(){
+
+        GameEngine engine = new GameEngine();
+        MCTS mcts = new MCTS();
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(300);
+
+        Move blackMove = mcts.getNextMove(board, false, limits);
+        assertTrue(isMoveValid(blackMove, false));
+        engine.updateBoard(blackMove, board, false);
+
+        AIPlayer whitePlayer = new AIPlayer(true);
+        whitePlayer.addPieces(whitePieces);
+        Move whiteMove = whitePlayer.getHeuristicMove(board);
+        engine.updateBoard(whiteMove, board, false);
+
+        // the root already has the visits from the first search, as well as the new ones
+        blackMove = mcts.getNextMove(board, false, limits);
+        assertTrue(isMoveValid(blackMove, false));
+        assertTrue(mcts.getRootVisitCount() > mcts.getNumberOfPlayouts());
+    }
+
+    /**
+     * Testing that MCTS carries on from the tree it searched while
+     * pondering, once the opponent plays one of the moves it searched
+     */
+    @Test
+    public void testMonteCarloPondering() throws InterruptedException {
+
+        GameEngine engine = new GameEngine();
+        MCTS mcts = new MCTS();
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(300);
+
+        Move blackMove = mcts.getNextMove(board, false, limits);
+        engine.updateBoard(blackMove, board, false);
+
+        // pondering on a copy, as the board is changed by white's move
+        mcts.startPondering(board.newBoard(0, 0, 5, 5, -1), true);
+        assertTrue(mcts.isPondering());
+        Thread.sleep(500);
+
+        // white plays the move the pondering search rates best
+        Move whiteMove = mcts.getBestMove();
+        assertTrue(isMoveValid(whiteMove, true));
+        engine.updateBoard(whiteMove, board, false);
+
+        blackMove = mcts.getNextMove(board, false, limits);
+        assertFalse(mcts.isPondering());
+        assertTrue(isMoveValid(blackMove, false));
+        assertTrue(mcts.getRootVisitCount() > mcts.getNumberOfPlayouts());
+    }
+
+    /**
+     * Testing that MCTS stays within its node limit, by
+     * recycling the least visited parts of the tree
+     */
+    @Test
+    public void testMonteCarloNodeLimit(){
+
+        MCTS mcts = new MCTS();
+        mcts.setMaxNodes(500);
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(2000);
+
+        Move whiteMove = mcts.getNextMove(board, true, limits);
+
+        assertTrue(isMoveValid(whiteMove, true));
+        assertTrue(mcts.getNumberOfNodes() <= 500);
+        assertTrue(mcts.getRootVisitCount() > 0);
+    }
+
+    /**
+     * Testing that MCTS still finds a move when the node limit is smaller
+     * than the number of moves at the root, on the 10x10 opening
+     */
+    @Test
+    public void testMonteCarloNodeLimitBelowRootMoves(){
+
+        Board largeBoard = new Board(10, 10);
+        largeBoard.resetBoard(new Player(true, false), new Player(false, false));
+
+        MCTS mcts = new MCTS();
+        mcts.setMaxNodes(1000);
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(200);
+
+        Move whiteMove = mcts.getNextMove(largeBoard, true, limits);
+
+        assertNotNull(whiteMove);
+        assertTrue(largeBoard.countMoves(true) > 1000);
+        assertTrue(mcts.getRootVisitCount() >= 200);
+    }
+
+    /**
+     * Testing that MCTS stops at each of the search limits,
+     * including when stopped from another thread
+     */
+    @Test
+    public void testMonteCarloSearchLimits(){
+
+        MCTS mcts = new MCTS();
+
+        SearchLimits playoutLimits = new SearchLimits();
+        playoutLimits.setMaxPlayouts(200);
+        Move blackMove = mcts.getNextMove(board, false, playoutLimits);
+
+        assertTrue(isMoveValid(blackMove, false));
+        assertEquals(200, mcts.getNumberOfPlayouts());
+
+        SearchLimits nodeLimits = new SearchLimits();
+        nodeLimits.setMaxNodes(100);
+        Move whiteMove = mcts.getNextMove(board, true, nodeLimits);
+
+        assertTrue(isMoveValid(whiteMove, true));
+        assertTrue(mcts.getNumberOfNodes() >= 100);
+
+        // with no limits, the search only finishes when stopped
+        SearchLimits stopLimits = new SearchLimits();
+        new Thread(() -> {
+
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            stopLimits.stop();
+        }).start();
+
+        blackMove = mcts.getNextMove(board, false, stopLimits);
+        assertTrue(isMoveValid(blackMove, false));
+        assertTrue(isMoveValid(mcts.getBestMove(), false));
+    }
+
+    /**
+     * Testing that MCTS returns a valid move when nodes for the same position share
+     * their statistics, and that root grandchildren reached by playing the same moves
+     * with their shots swapped report the same visit count
+     */
+    @Test
+    public void testTranspositionMonteCarloMove(){
+
+        MCTS mcts = new MCTS();
+        mcts.transpositions = true;
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(2000);
+
+        Move blackMove = mcts.getNextMove(board, false, limits);
+        assertTrue(isMoveValid(blackMove, false));
+
+        NodePool pool = mcts.getLastTree();
+        BitBoard rootBoard = BitBoard.fromBoard(board);
+
+        // the grandchildren of the root, by the zobrist key of their board
+        HashMap<Long, ArrayList<Integer>> grandchildren = new HashMap<>();
+
+        int firstChild = pool.getFirstChild(0);
+
+        for(int child = firstChild; child < firstChild + pool.getChildCount(0); child++){
+
+            BitBoard childBoard = rootBoard.copy();
+            childBoard.applyMove(pool.getMove(child));
+
+            int firstGrandchild = pool.getFirstChild(child);
+
+            for(int grandchild = firstGrandchild; grandchild < firstGrandchild + pool.getChildCount(child); grandchild++){
+
+                BitBoard grandchildBoard = childBoard.copy();
+                grandchildBoard.applyMove(pool.getMove(grandchild));
+
+                grandchildren.computeIfAbsent(grandchildBoard.getZobristKey(), k -> new ArrayList<>()).add(grandchild);
+            }
+        }
+
+        int visitedTranspositions = 0;
+
+        for(HashMap.Entry<Long, ArrayList<Integer>> entry: grandchildren.entrySet()){
+
+            ArrayList<Integer> nodes = entry.getValue();
+
+            if(nodes.size() < 2){
+                continue;
+            }
+
+            int visitCount = mcts.getVisitCount(pool, nodes.get(0), entry.getKey());
+
+            for(int node: nodes){
+                assertEquals(visitCount, mcts.getVisitCount(pool, node, entry.getKey()));
+            }
+
+            if(visitCount > 0){
+                visitedTranspositions++;
+            }
+        }
+
+        assertTrue(visitedTranspositions > 0);
+
+        Move whiteMove = mcts.getNextMove(board, true, limits);
+        assertTrue(isMoveValid(whiteMove, true));
+    }
+
+    /**
+     * Testing that two orders of the same moves reach the same zobrist
+     * key, and so share one transposition table entry
+     */
+    @Test
+    public void testTranspositionTableSharedEntry(){
+
+        Board openingBoard = new Board(10, 10);
+        openingBoard.resetBoard(new Player(true, false), new Player(false, false));
+
+        BitBoard firstOrder = BitBoard.fromBoard(openingBoard);
+        BitBoard secondOrder = BitBoard.fromBoard(openingBoard);
+
+        int whiteMove1 = MoveGenerator.packMove(firstOrder.getIndex(0, 3), firstOrder.getIndex(1, 3), firstOrder.getIndex(1, 4));
+        int whiteMove2 = MoveGenerator.packMove(firstOrder.getIndex(9, 3), firstOrder.getIndex(8, 3), firstOrder.getIndex(8, 4));
+        int blackMove = MoveGenerator.packMove(firstOrder.getIndex(9, 6), firstOrder.getIndex(9, 7), firstOrder.getIndex(9, 8));
+
+        firstOrder.applyMove(whiteMove1);
+        firstOrder.applyMove(blackMove);
+        firstOrder.applyMove(whiteMove2);
+
+        secondOrder.applyMove(whiteMove2);
+        secondOrder.applyMove(blackMove);
+        secondOrder.applyMove(whiteMove1);
+
+        assertEquals(firstOrder.getZobristKey(), secondOrder.getZobristKey());
+
+        TranspositionTable table = new TranspositionTable(64);
+        table.addVisits(firstOrder.getZobristKey(), 1, 1);
+        table.addVisits(secondOrder.getZobristKey(), 1, 0);
+
+        int entry = table.find(firstOrder.getZobristKey());
+
+        assertNotEquals(-1, entry);
+        assertEquals(entry, table.find(secondOrder.getZobristKey()));
+        assertEquals(2, table.getVisitCount(entry));
+        assertEquals(1, table.getWinScore(entry), 0);
+    }
+
+    /**
+     * Testing that the newest position replaces the second entry of a bucket, the most
+     * visited position stays in the first, and a position that comes back after being
+     * replaced starts again from the statistics of its node
+     */
+    @Test
+    public void testTranspositionTableReplacement(){
+
+        // a single bucket, so every position shares it
+        TranspositionTable table = new TranspositionTable(2);
+
+        table.addVisits(1, 5, 3);
+        table.addVisits(2, 1, 1);
+        table.addVisits(3, 1, 0);
+
+        assertEquals(0, table.find(1));
+        assertEquals(-1, table.find(2));
+        assertEquals(1, table.find(3));
+
+        // position 2 comes back, with a node visited more than position 1
+        table.addVisits(2, 1, 1, 10, 7);
+
+        int entry = table.find(2);
+
+        assertEquals(0, entry);
+        assertEquals(-1, table.find(1));
+        assertEquals(10, table.getVisitCount(entry));
+        assertEquals(7, table.getWinScore(entry), 0);
+    }
+
+    /**
+     * Testing that, with progressive widening, no node has more children than
+     * its visit count allows, and untried moves are turned into children one at
+     * a time, so a search adds at most one child for each playout
+     */
+    @Test
+    public void testProgressiveWideningMonteCarloMove(){
+
+        NodePool expandedPool = new NodePool(16);
+        assertTrue(expandedPool.startExpansion(0));
+        assertTrue(expandedPool.finishExpansion(0, new int[]{1, 2, 3, 4, 5}, 5));
+
+        int firstChild = expandedPool.getFirstChild(0);
+
+        assertEquals(firstChild, expandedPool.addChild(0, 2));
+        assertEquals(firstChild + 1, expandedPool.addChild(0, 2));
+        assertEquals(-1, expandedPool.addChild(0, 2));
+        assertEquals(2, expandedPool.getChildCount(0));
+
+        Board largeBoard = new Board(10, 10);
+        largeBoard.resetBoard(new Player(true, false), new Player(false, false));
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(500);
+
+        MCTS mcts = new MCTS();
+        mcts.progressiveWidening = true;
+
+        Move whiteMove = mcts.getNextMove(largeBoard, true, limits);
+        assertNotNull(whiteMove);
+
+        NodePool pool = mcts.getLastTree();
+        int totalChildren = 0;
+
+        for(int node = 0; node < pool.getSize(); node++){
+
+            if(!pool.isExpanded(node)){
+                continue;
+            }
+
+            double maxChildren = Math.ceil(MCTS.WIDENING_CONSTANT * Math.pow(pool.getVisitCount(node) + 1, MCTS.WIDENING_EXPONENT));
+
+            assertTrue(pool.getChildCount(node) <= maxChildren);
+            assertTrue(pool.getChildCount(node) < pool.getMoveCount(node));
+            totalChildren += pool.getChildCount(node);
+        }
+
+        assertTrue(totalChildren <= mcts.getNumberOfPlayouts());
+    }
+
+    /**
+     * Testing that MCTS returns a valid move when all-moves-as-first
+     * statistics are blended into selection with RAVE
+     */
+    @Test
+    public void testRaveMonteCarloMove(){
+
+        MCTS mcts = new MCTS();
+        mcts.rave = true;
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(400);
+
+        Move blackMove = mcts.getNextMove(board, false, limits);
+        Move whiteMove = mcts.getNextMove(board, true, limits);
+
+        assertTrue(isMoveValid(blackMove, false));
+        assertTrue(isMoveValid(whiteMove, true));
+    }
+
+    /**
+     * Testing the all-moves-as-first statistics recorded by a seeded search with a
+     * fixed number of playouts. Every visit through a root child counts towards its
+     * own statistics, moves played later in the playouts add more, and the same seed
+     * records the same statistics again.
+     */
+    @Test
+    public void testRaveAmafStatistics(){
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(300);
+
+        MCTS mcts = new MCTS();
+        mcts.rave = true;
+
+        RandomSource.setSeed(7);
+        mcts.getNextMove(board, true, limits);
+        NodePool pool = mcts.getLastTree();
+
+        MCTS repeatMcts = new MCTS();
+        repeatMcts.rave = true;
+
+        RandomSource.setSeed(7);
+        repeatMcts.getNextMove(board, true, limits);
+        NodePool repeatPool = repeatMcts.getLastTree();
+
+        assertTrue(pool.hasAmafStatistics());
+        assertEquals(pool.getChildCount(0), repeatPool.getChildCount(0));
+
+        int firstChild = pool.getFirstChild(0);
+        boolean playedLater = false;
+
+        for(int child = firstChild; child < firstChild + pool.getChildCount(0); child++){
+
+            assertTrue(pool.getAmafVisitCount(child) >= pool.getVisitCount(child));
+            assertTrue(pool.getAmafVisitCount(child) <= pool.getVisitCount(0));
+            assertTrue(pool.getAmafWinScore(child) <= pool.getAmafVisitCount(child));
+
+            assertEquals(pool.getMove(child), repeatPool.getMove(child));
+            assertEquals(pool.getAmafVisitCount(child), repeatPool.getAmafVisitCount(child));
+            assertEquals(pool.getAmafWinScore(child), repeatPool.getAmafWinScore(child), 0);
+
+            if(pool.getAmafVisitCount(child) > pool.getVisitCount(child)){
+                playedLater = true;
+            }
+        }
+        assertTrue(playedLater);
+    }
+
+    /**
+     * Testing that RAVE blends a node's win rate with its all-moves-as-first
+     * win rate, weighted by beta = sqrt(k / (3n + k)), and only with RAVE on
+     */
+    @Test
+    public void testRaveWinRateBlend(){
+
+        NodePool pool = new NodePool(8);
+        pool.enableAmafStatistics();
+        pool.startExpansion(0);
+        pool.finishExpansion(0, new int[]{1}, 1);
+
+        int child = pool.addChild(0, 1);
+        pool.addVisits(child, 4, 3);
+        pool.addAmafVisits(child, 10, 2);
+
+        MCTS mcts = new MCTS();
+        assertEquals(0.75, mcts.getWinRate(pool, child, 3, 4), 1e-9);
+
+        mcts.rave = true;
+        double beta = Math.sqrt(MCTS.RAVE_EQUIVALENCE / (3 * 4 + MCTS.RAVE_EQUIVALENCE));
+
+        assertEquals((1 - beta) * 0.75 + beta * 0.2, mcts.getWinRate(pool, child, 3, 4), 1e-9);
+    }
+
+    /**
+     * Testing that MCTS returns a valid move when children are
+     * chosen with PUCT, using heuristic move priors
+     */
+    @Test
+    public void testPuctMonteCarloMove(){
+
+        MCTS mcts = new MCTS();
+        mcts.puct = true;
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(400);
+
+        Move blackMove = mcts.getNextMove(board, false, limits);
+        Move whiteMove = mcts.getNextMove(board, true, limits);
+
+        assertTrue(isMoveValid(blackMove, false));
+        assertTrue(isMoveValid(whiteMove, true));
+        assertTrue(mcts.getRootVisitCount() > 0);
+    }
+
+    /**
+     * Testing that PUCT values children from the point of view of the player to
+     * move, so at an opponent node, the child with the higher prior and the lower
+     * win rate for the root player is chosen, and the other child at a root player node
+     */
+    @Test
+    public void testPuctOpponentNode(){
+
+        NodePool pool = new NodePool(16);
+        pool.enablePriors();
+
+        pool.startExpansion(0);
+        pool.finishExpansion(0, new int[]{1}, new float[]{1}, 1);
+        int opponentNode = pool.addChild(0, 1);
+
+        pool.startExpansion(opponentNode);
+        pool.finishExpansion(opponentNode, new int[]{2, 3}, new float[]{0.8f, 0.2f}, 2);
+        int likelyChild = pool.addChild(opponentNode, 2);
+        int unlikelyChild = pool.addChild(opponentNode, 2);
+
+        // win scores are from the root player's point of view
+        pool.addVisits(opponentNode, 10, 5);
+        pool.addVisits(likelyChild, 5, 1);
+        pool.addVisits(unlikelyChild, 5, 4);
+
+        MCTS mcts = new MCTS();
+        mcts.puct = true;
+        BitBoard bitBoard = BitBoard.fromBoard(board);
+
+        assertEquals(likelyChild, mcts.findBestNodeWithPUCT(pool, opponentNode, bitBoard, false));
+        assertEquals(unlikelyChild, mcts.findBestNodeWithPUCT(pool, opponentNode, bitBoard, true));
+    }
+
+    /**
+     * Testing that PUCT move priors add up to 1, and the moves are sorted
+     * with the highest priors first, keeping moves with the same prior in
+     * their original order, without changing the board
+     */
+    @Test
+    public void testPuctMovePriors(){
+
+        BitBoard bitBoard = BitBoard.fromBoard(board);
+        long key = bitBoard.getZobristKey();
+
+        MoveGenerator moveGenerator = new MoveGenerator();
+        int noOfMoves = moveGenerator.generateMoves(bitBoard, true);
+        int[] moves = Arrays.copyOf(moveGenerator.getMoves(), noOfMoves);
+        int[] originalMoves = moves.clone();
+
+        float[] priors = MCTS.getMovePriors(bitBoard, true, moves, noOfMoves);
+
+        assertEquals(key, bitBoard.getZobristKey());
+        assertEquals(noOfMoves, priors.length);
+
+        // the same moves, just reordered
+        int[] sortedMoves = moves.clone();
+        int[] sortedOriginalMoves = originalMoves.clone();
+        Arrays.sort(sortedMoves);
+        Arrays.sort(sortedOriginalMoves);
+        assertArrayEquals(sortedOriginalMoves, sortedMoves);
+
+        double total = 0;
+
+        for(int i = 0; i < noOfMoves; i++){
+
+            total += priors[i];
+
+            if(i > 0){
+
+                assertTrue(priors[i] <= priors[i - 1]);
+
+                if(priors[i] == priors[i - 1]){
+                    assertTrue(indexOf(originalMoves, moves[i]) > indexOf(originalMoves, moves[i - 1]));
+                }
+            }
+        }
+
+        assertEquals(1, total, 1e-4);
+        assertTrue(priors[0] > priors[noOfMoves - 1]);
+    }
+
+    /**
+     * Finds a value in an array
+     * @param values array to search
+     * @param value value to find
+     * @return index of the value, or -1 if it isn't in the array
+     */
+    private int indexOf(int[] values, int value){
+
+        for(int i = 0; i < values.length; i++){
+            if(values[i] == value){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Testing that MCTS chooses the same move each time
+     * the same seed is used, with a fixed number of playouts
+     */
+    @Test
+    public void testSeededMonteCarloMove(){
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(300);
+
+        RandomSource.setSeed(42);
+        Move firstMove = new MCTS().getNextMove(board, true, limits);
+
+        RandomSource.setSeed(42);
+        Move secondMove = new MCTS().getNextMove(board, true, limits);
+
+        assertEquals(firstMove.getStartPosition(), secondMove.getStartPosition());
+        assertEquals(firstMove.getEndPosition(), secondMove.getEndPosition());
+        assertEquals(firstMove.getBurnedSquare(), secondMove.getBurnedSquare());
+    }
+
+    /**
+     * Testing that MCTS returns a valid move when playouts are cut off
+     * early, and the board is scored by territory and mobility instead
+     */
+    @Test
+    public void testEarlyCutoffMonteCarloMove(){
+
+        MCTS mcts = new MCTS();
+        mcts.setMaxPlayoutLength(10);
+        mcts.regionCutoff = true;
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(400);
+
+        Move blackMove = mcts.getNextMove(board, false, limits);
+        Move whiteMove = mcts.getNextMove(board, true, limits);
+
+        assertTrue(isMoveValid(blackMove, false));
+        assertTrue(isMoveValid(whiteMove, true));
+    }
+
+    /**
+     * Gets the log odds of a probability, which undoes the logistic
+     * function used to score cut off playouts
+     * @param probability probability between 0 and 1
+     * @return log odds of the probability
+     */
+    private double getLogOdds(double probability){
+        return Math.log(probability / (1 - probability));
+    }
+
+    /**
+     * Testing that a cut off playout on a contested board is scored by mobility,
+     * with half a move taken off the player to move, and each spare move
+     * counted as a square of territory
+     */
+    @Test
+    public void testEvaluateContestedPlayout(){
+
+        MCTS mcts = new MCTS();
+        BitBoard bitBoard = BitBoard.fromBoard(board);
+
+        double whiteToMove = getLogOdds(mcts.evaluatePlayout(bitBoard, true, 0));
+        double blackToMove = getLogOdds(mcts.evaluatePlayout(bitBoard, false, 0));
+        double withSpareMoves = getLogOdds(mcts.evaluatePlayout(bitBoard, true, 3));
+
+        assertTrue(whiteToMove < blackToMove);
+        assertEquals(MCTS.MOBILITY_SCALE, blackToMove - whiteToMove, 1e-9);
+        assertEquals(3 * MCTS.MOBILITY_SCALE, withSpareMoves - whiteToMove, 1e-9);
+    }
+
+    /**
+     * Testing that, once no region is contested, a cut off playout is only scored
+     * by territory, the empty squares of the regions only one colour has amazons
+     * in, along with spare moves, on the steeper territory scale
+     */
+    @Test
+    public void testEvaluateSettledPlayout(){
+
+        Board splitBoard = new Board(6, 6);
+        splitBoard.setupBoard();
+
+        Piece whitePiece = new Piece(true);
+        whitePiece.setPosition(splitBoard.getSquare(0, 0));
+        splitBoard.addPiece(0, 0, whitePiece);
+
+        Piece blackPiece = new Piece(false);
+        blackPiece.setPosition(splitBoard.getSquare(5, 5));
+        splitBoard.addPiece(5, 5, blackPiece);
+
+        for(int y = 0; y < 6; y++){
+            splitBoard.burnSquare(3, y);
+        }
+
+        BitBoard bitBoard = BitBoard.fromBoard(splitBoard);
+        RegionIndex regionIndex = bitBoard.trackRegions();
+
+        // 3 columns with one amazon on the left, and 2 columns with one amazon on the right
+        assertFalse(regionIndex.hasContestedRegion());
+        assertEquals(17, MCTS.getTerritory(regionIndex, true));
+        assertEquals(11, MCTS.getTerritory(regionIndex, false));
+
+        MCTS mcts = new MCTS();
+
+        // 17 - 11 - 5 spare moves for black - 0.5 for white to move
+        assertEquals(MCTS.TERRITORY_SCALE * 0.5, getLogOdds(mcts.evaluatePlayout(bitBoard, true, -5)), 1e-9);
+        assertEquals(MCTS.TERRITORY_SCALE * 1.5, getLogOdds(mcts.evaluatePlayout(bitBoard, false, -5)), 1e-9);
+    }
+
+    /**
+     * Testing that MCTS with partition search only moves amazons in the
+     * contested region, on a board split by a burnt column, where the
+     * right hand region only holds a white amazon
+     */
+    @Test
+    public void testPartitionMonteCarloMove(){
+
+        Board splitBoard = new Board(6, 6);
+        splitBoard.setupBoard();
+
+        Piece whitePiece = new Piece(true);
+        whitePiece.setPosition(splitBoard.getSquare(0, 0));
+        splitBoard.addPiece(0, 0, whitePiece);
+
+        Piece blackPiece = new Piece(false);
+        blackPiece.setPosition(splitBoard.getSquare(2, 5));
+        splitBoard.addPiece(2, 5, blackPiece);
+
+        Piece whitePiece2 = new Piece(true);
+        whitePiece2.setPosition(splitBoard.getSquare(5, 5));
+        splitBoard.addPiece(5, 5, whitePiece2);
+
+        for(int y = 0; y < 6; y++){
+            splitBoard.burnSquare(3, y);
+        }
+
+        MCTS mcts = new MCTS();
+        mcts.partitionSearch = true;
+
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxPlayouts(400);
+
+        Move whiteMove = mcts.getNextMove(splitBoard, true, limits);
+
+        assertEquals(0, whiteMove.getStartPosition().getX());
+        assertEquals(0, whiteMove.getStartPosition().getY());
+        assertTrue(whiteMove.getEndPosition().getX() < 3);
+        assertTrue(whiteMove.getBurnedSquare().getX() < 3);
+    }
+
+    /**
+     * Testing that the moves in a region holding only one colour's amazons are counted
+     * by searching the region, on a board split by a burnt column, where the right hand
+     * region only holds a white amazon, which can burn every square around it in turn
+     */
+    @Test
+    public void testSettledRegionMoves(){
+
+        Board splitBoard = new Board(6, 6);
+        splitBoard.setupBoard();
+
+        Piece blackPiece = new Piece(false);
+        blackPiece.setPosition(splitBoard.getSquare(0, 0));
+        splitBoard.addPiece(0, 0, blackPiece);
+
+        Piece whitePiece = new Piece(true);
+        whitePiece.setPosition(splitBoard.getSquare(5, 5));
+        splitBoard.addPiece(5, 5, whitePiece);
+
+        for(int y = 0; y < 6; y++){
+            splitBoard.burnSquare(3, y);
+        }
+
+        // the black amazon is walled into its corner
+        splitBoard.burnSquare(0, 1);
+        splitBoard.burnSquare(1, 0);
+        splitBoard.burnSquare(1, 1);
+
+        BitBoard bitBoard = BitBoard.fromBoard(splitBoard);
+        ConnectedComponents components = new ConnectedComponents(bitBoard);
+        long key = bitBoard.getZobristKey();
+
+        int whiteRegion = components.getLabel(bitBoard.getIndex(5, 5));
+        int blackRegion = components.getLabel(bitBoard.getIndex(0, 0));
+
+        assertEquals(11, MCTS.getSettledRegionMoves(splitBoard, bitBoard, components, whiteRegion, true));
+        assertEquals(0, MCTS.getSettledRegionMoves(splitBoard, bitBoard, components, blackRegion, false));
+        assertEquals(key, bitBoard.getZobristKey());
+    }
+
+    /**
+     * Testing that the MCTS-Solver proves a won position, and
+     * stops searching as soon as it has, rather than using all its time
+     */
+    @Test
+    public void testSolverMonteCarloMove(){
+
+        Board endBoard = new Board(4, 4);
+        endBoard.setupBoard();
+
+        for(int x = 0; x < 4; x++){
+            for(int y = 0; y < 4; y++){
+                if(y != 2 && !(x == 3 && y == 3)){
+                    endBoard.burnSquare(x, y);
+                }
+            }
+        }
+
+        Piece whitePiece = new Piece(true);
+        whitePiece.setPosition(endBoard.getSquare(0, 2));
+        endBoard.addPiece(0, 2, whitePiece);
+
+        Piece blackPiece = new Piece(false);
+        blackPiece.setPosition(endBoard.getSquare(3, 3));
+        endBoard.addPiece(3, 3, blackPiece);
+
+        MCTS mcts = new MCTS();
+        mcts.solver = true;
+
+        long startTime = System.currentTimeMillis();
+        Move whiteMove = mcts.getNextMove(endBoard, true, new SearchLimits(10000));
+
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+        assertFalse(endBoard.playMove(whiteMove).hasAnyMove(false));
+    }
+
     /**
      * Testing that the Heuristic AI returns a move that
      * limits the opponents moves.
@@ -0,0 +1,437 @@
+import java.util.Arrays;
+
+/**
+ * Compact representation of an Amazons board, storing the burnt squares,
+ * the white amazons and the black amazons as three bit planes, rather
+ * than as a 2-D array of Square objects. Squares are referred to by a single
+ * index, counting along each row in turn, so the square at (x, y) has the
+ * index y * columnBoardSize + x.
+ * Boards with up to 64 squares use a SmallBitBoard (one long per plane),
+ * larger boards use a LargeBitBoard (an array of longs per plane).
+ */
+public abstract class BitBoard {
+
+    protected int columnBoardSize, rowBoardSize; // number of columns and number of rows
+    protected int numberOfSquares;
+    protected Zobrist zobrist; // zobrist keys for each square, shared with Board objects of the same size
+    protected long zobristKey; // XOR of the zobrist keys of every square, updated by every change
+    protected RegionIndex regionIndex; // regions of unburnt squares, or null if they aren't being tracked
+
+    private int[] undoStack = new int[16]; // packed moves played with make(), most recent last
+    private int undoStackSize;
+
+    protected BitBoard(int columnBoardSize, int rowBoardSize){
+        this.columnBoardSize = columnBoardSize;
+        this.rowBoardSize = rowBoardSize;
+        this.numberOfSquares = columnBoardSize * rowBoardSize;
+        this.zobrist = Zobrist.getZobrist(columnBoardSize, rowBoardSize);
+        this.zobristKey = zobrist.getSizeKey();
+    }
+
+    /**
+     * Creates a new, empty, bit board of the given size, choosing
+     * the representation that fits the number of squares
+     * @param columnBoardSize number of columns
+     * @param rowBoardSize number of rows
+     * @return Empty BitBoard object
+     */
+    public static BitBoard newBitBoard(int columnBoardSize, int rowBoardSize){
+
+        if(columnBoardSize * rowBoardSize <= 64){
+            return new SmallBitBoard(columnBoardSize, rowBoardSize);
+        } else {
+            return new LargeBitBoard(columnBoardSize, rowBoardSize);
+        }
+    }
+
+    /**
+     * Creates a bit board with the same burnt squares and pieces as the given board
+     * @param board Board object to copy
+     * @return BitBoard version of the given board
+     */
+    public static BitBoard fromBoard(Board board){
+
+        BitBoard bitBoard = newBitBoard(board.getColumnBoardSize(), board.getRowBoardSize());
+
+        for(int x = 0; x < board.getColumnBoardSize(); x++){
+            for(int y = 0; y < board.getRowBoardSize(); y++){
+
+                Square square = board.getSquare(x, y);
+
+                // burnt squares take priority over pieces, as in Board.copySquare()
+                if(square.isBurnt()){
+                    bitBoard.burnSquare(bitBoard.getIndex(x, y));
+                } else if(square.getAmazon() != null){
+                    bitBoard.addPiece(bitBoard.getIndex(x, y), square.getAmazon().isWhite());
+                }
+            }
+        }
+        return bitBoard;
+    }
+
+    /**
+     * Creates a Board object, with Square and Piece objects, from "this" bit board
+     * @return Board version of the current bit board
+     */
+    public Board toBoard(){
+
+        Board board = new Board(columnBoardSize, rowBoardSize);
+        board.setupBoard();
+
+        for(int index = 0; index < numberOfSquares; index++){
+
+            int x = getX(index);
+            int y = getY(index);
+
+            if(isBurnt(index)){
+                board.burnSquare(x, y);
+            } else if(hasPiece(index, true)){
+                board.addPiece(x, y, new Piece(true));
+            } else if(hasPiece(index, false)){
+                board.addPiece(x, y, new Piece(false));
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Gets the index of the square at a particular x & y co-ordinate
+     * @param x square x co-ordinate
+     * @param y square y co-ordinate
+     * @return index of the square
+     */
+    public int getIndex(int x, int y){
+        return y * columnBoardSize + x;
+    }
+
+    /**
+     * Gets the x co-ordinate of the square with the given index
+     * @param index index of the square
+     * @return square x co-ordinate
+     */
+    public int getX(int index){
+        return index % columnBoardSize;
+    }
+
+    /**
+     * Gets the y co-ordinate of the square with the given index
+     * @param index index of the square
+     * @return square y co-ordinate
+     */
+    public int getY(int index){
+        return index / columnBoardSize;
+    }
+
+    public int getColumnBoardSize(){
+        return this.columnBoardSize;
+    }
+
+    public int getRowBoardSize(){
+        return this.rowBoardSize;
+    }
+
+    public int getNumberOfSquares(){
+        return this.numberOfSquares;
+    }
+
+    /**
+     * Gets the zobrist key of the current bit board, which is the same as the key
+     * of the equivalent Board object, and is updated by every change to a square
+     * @return 64-bit zobrist key of the bit board
+     */
+    public long getZobristKey(){
+        return this.zobristKey;
+    }
+
+    /**
+     * Gets the zobrist keys used for this size of bit board
+     * @return Zobrist object for the board size
+     */
+    public Zobrist getZobrist(){
+        return this.zobrist;
+    }
+
+    /**
+     * Checks if the square with the given index is burnt
+     * @param index index of the square
+     * @return true if burnt, false otherwise
+     */
+    public abstract boolean isBurnt(int index);
+
+    /**
+     * Checks if the square with the given index contains an amazon of the given colour
+     * @param index index of the square
+     * @param isWhite colour of the amazon, true for white, false for black
+     * @return true if the square contains an amazon of that colour, false otherwise
+     */
+    public abstract boolean hasPiece(int index, boolean isWhite);
+
+    /**
+     * Checks if the square with the given index is empty, meaning not burnt and without an amazon
+     * @param index index of the square
+     * @return true if empty, false otherwise
+     */
+    public abstract boolean isSquareEmpty(int index);
+
+    /**
+     * Sets or clears the burnt bit of the square with the given index, without any other bookkeeping
+     * @param index index of the square
+     * @param isBurnt true to burn the square, false to remove the burn
+     */
+    protected abstract void setBurnt(int index, boolean isBurnt);
+
+    /**
+     * Sets or clears the bit for an amazon of the given colour, without any other bookkeeping
+     * @param index index of the square
+     * @param isWhite colour of the amazon, true for white, false for black
+     * @param hasPiece true to add the amazon, false to remove it
+     */
+    protected abstract void setPiece(int index, boolean isWhite, boolean hasPiece);
+
+    /**
+     * Burns the square with the given index
+     * @param index index of the square
+     */
+    public void burnSquare(int index){
+
+        if(isBurnt(index)){
+            return;
+        }
+
+        zobristKey ^= zobrist.getBurntKey(index);
+        setBurnt(index, true);
+
+        if(regionIndex != null){
+            regionIndex.squareBurnt(index);
+        }
+    }
+
+    /**
+     * Removes the burn from the square with the given index, used when undoing moves
+     * @param index index of the square
+     */
+    public void unburnSquare(int index){
+
+        if(!isBurnt(index)){
+            return;
+        }
+
+        zobristKey ^= zobrist.getBurntKey(index);
+        setBurnt(index, false);
+
+        if(regionIndex != null){
+            regionIndex.squareUnburnt(index);
+        }
+    }
+
+    /**
+     * Adds an amazon of the given colour to the square with the given index
+     * @param index index of the square
+     * @param isWhite colour of the amazon, true for white, false for black
+     */
+    public void addPiece(int index, boolean isWhite){
+
+        if(hasPiece(index, isWhite)){
+            return;
+        }
+
+        zobristKey ^= zobrist.getPieceKey(index, isWhite);
+        setPiece(index, isWhite, true);
+
+        if(regionIndex != null){
+            regionIndex.pieceChanged(index, isWhite, 1);
+        }
+    }
+
+    /**
+     * Removes any amazon from the square with the given index
+     * @param index index of the square
+     */
+    public void removePiece(int index){
+
+        if(hasPiece(index, true)){
+            removePiece(index, true);
+        } else if(hasPiece(index, false)){
+            removePiece(index, false);
+        }
+    }
+
+    /**
+     * Removes an amazon, known to be of the given colour, from the square with the given index
+     * @param index index of the square
+     * @param isWhite colour of the amazon, true for white, false for black
+     */
+    private void removePiece(int index, boolean isWhite){
+
+        zobristKey ^= zobrist.getPieceKey(index, isWhite);
+        setPiece(index, isWhite, false);
+
+        if(regionIndex != null){
+            regionIndex.pieceChanged(index, isWhite, -1);
+        }
+    }
+
+    /**
+     * Stores the indexes of all the pieces of a given colour in the array given
+     * @param isWhite indicates what colour to check, true for white, false for black
+     * @param pieces array to store the square indexes in, must be large enough for all pieces
+     * @return The number of pieces of the given colour
+     */
+    public abstract int getPieces(boolean isWhite, int[] pieces);
+
+    /**
+     * Gets the number of pieces of a given colour, on the current board
+     * @param isWhite indicates what colour to check, true for white, false for black
+     * @return The number of pieces of the given colour
+     */
+    public abstract int getNumberOfPieces(boolean isWhite);
+
+    /**
+     * Gets all squares that can be moved to according to amazons rules, from a starting square
+     * @param startIndex index of the square we are starting from
+     * @param skipIndex index of a square that should be treated as empty, or -1
+     * @param validSquares array to store the square indexes in, must have room for every square
+     * @return the number of squares that can be moved to
+     */
+    public abstract int getValidSquares(int startIndex, int skipIndex, int[] validSquares);
+
+    /**
+     * Counts the squares that can be moved to according to amazons rules, from a starting square
+     * @param startIndex index of the square we are starting from
+     * @param skipIndex index of a square that should be treated as empty, or -1
+     * @return the number of squares that can be moved to
+     */
+    public abstract int countValidSquares(int startIndex, int skipIndex);
+
+    /**
+     * Counts the possible moves for a given colour, by summing the number of squares that
+     * can be shot at from each square that can be moved to, without generating the moves
+     * @param isWhite indicates what colour to check, true for white, false for black
+     * @return The number of possible moves for the given colour
+     */
+    public abstract int countMoves(boolean isWhite);
+
+    /**
+     * Checks if a given colour has any possible move. An amazon that can move can always shoot
+     * back at the square it came from, so this only needs an amazon with an empty square next to it.
+     * @param isWhite indicates what colour to check, true for white, false for black
+     * @return true if the colour can move, false otherwise
+     */
+    public abstract boolean hasAnyMove(boolean isWhite);
+
+    /**
+     * Checking if all the squares on the board are burnt
+     * @return true if all squares are burnt, false otherwise
+     */
+    public abstract boolean allSquaresBurnt();
+
+    /**
+     * Returns the number of empty squares, on "this" board
+     * @return number of empty squares
+     */
+    public abstract int getNumberOfEmptySquares();
+
+    /**
+     * Starts keeping track of the regions of unburnt squares on "this" bit board, which are then
+     * updated as squares are burnt and un-burnt, rather than being worked out again after each move
+     * @return RegionIndex for this bit board
+     */
+    public RegionIndex trackRegions(){
+
+        if(regionIndex == null){
+            regionIndex = new RegionIndex(this);
+        }
+        return regionIndex;
+    }
+
+    /**
+     * Gets the regions of unburnt squares on "this" bit board
+     * @return RegionIndex for this bit board, or null if trackRegions() hasn't been called
+     */
+    public RegionIndex getRegionIndex(){
+        return this.regionIndex;
+    }
+
+    /**
+     * Plays a packed move on "this" bit board, moving the amazon and burning the square shot at
+     * @param move packed move, from MoveGenerator
+     */
+    public void applyMove(int move){
+
+        int start = MoveGenerator.getStart(move);
+        boolean isWhite = hasPiece(start, true);
+
+        removePiece(start);
+        addPiece(MoveGenerator.getEnd(move), isWhite);
+        burnSquare(MoveGenerator.getShot(move));
+    }
+
+    /**
+     * Plays a packed move on "this" bit board, remembering it so that it can be undone by unmake()
+     * @param move packed move, from MoveGenerator
+     */
+    public void make(int move){
+
+        if(undoStackSize == undoStack.length){
+            undoStack = Arrays.copyOf(undoStack, undoStackSize * 2);
+        }
+
+        undoStack[undoStackSize] = move;
+        undoStackSize++;
+
+        applyMove(move);
+    }
+
+    /**
+     * Undoes the most recent move played with make(), un-burning the square
+     * shot at and moving the amazon back to its starting square
+     */
+    public void unmake(){
+
+        undoStackSize--;
+        int move = undoStack[undoStackSize];
+
+        int end = MoveGenerator.getEnd(move);
+        boolean isWhite = hasPiece(end, true);
+
+        unburnSquare(MoveGenerator.getShot(move));
+        removePiece(end);
+        addPiece(MoveGenerator.getStart(move), isWhite);
+    }
+
+    /**
+     * Gets the number of moves played with make() that haven't been undone yet
+     * @return number of moves that can be undone
+     */
+    public int getNumberOfMovesMade(){
+        return this.undoStackSize;
+    }
+
+    /**
+     * Makes an independent copy of "this" bit board, without any moves to undo,
+     * which also tracks regions if this bit board does
+     * @return copied BitBoard object
+     */
+    public BitBoard copy(){
+
+        BitBoard copy = copyBits();
+
+        if(regionIndex != null){
+            copy.regionIndex = regionIndex.copy(copy);
+        }
+        return copy;
+    }
+
+    /**
+     * Makes an independent copy of the bit planes and zobrist key of "this" bit board
+     * @return copied BitBoard object
+     */
+    protected abstract BitBoard copyBits();
+
+    /**
+     * Prints the current bit board to the console, with algebraic notation
+     */
+    public void printBoard(){
+        this.toBoard().printBoard();
+    }
+}
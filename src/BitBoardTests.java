@@ -0,0 +1,493 @@
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests used to check that the bit board
+ * representation agrees with the Board class.
+ */
+public class BitBoardTests {
+
+    public Board board;
+    public Board largeBoard;
+
+    /**
+     * Example Boards to be used in the tests, a 6x6 partially
+     * burnt board, as well as a 10x10 board in its starting position
+     *    -------------------------
+     * 5 |   | X | X | B |   |   |
+     *   -------------------------
+     * 4 |   | X | X |   |   | W |
+     *   -------------------------
+     * 3 | X | X | X | X | X | X |
+     *   -------------------------
+     * 2 | X |   | W | X | X |   |
+     *   -------------------------
+     * 1 |   | X | B | X | X |   |
+     *   -------------------------
+     * 0 |   |   |   | X |   |   |
+     *   -------------------------
+     *     A   B   C   D   E   F
+     */
+    @Before
+    public void setup(){
+
+        board = new Board(6, 6);
+        board.setupBoard();
+
+        board.addPiece(2, 1, new Piece(false));
+        board.addPiece(2, 2, new Piece(true));
+        board.addPiece(3, 5, new Piece(false));
+        board.addPiece(5, 4, new Piece(true));
+
+        int[][] burntSquares = {{0, 2}, {1, 1}, {0, 3}, {1, 3}, {1, 4}, {1, 5}, {2, 3}, {2, 4}, {2, 5},
+                {3, 0}, {3, 1}, {3, 2}, {3, 3}, {4, 1}, {4, 2}, {4, 3}, {5, 3}};
+
+        for(int[] square: burntSquares){
+            board.burnSquare(square[0], square[1]);
+        }
+
+        largeBoard = new Board(10, 10);
+        largeBoard.resetBoard(new Player(true, false), new Player(false, false));
+        largeBoard.burnSquare(4, 4);
+        largeBoard.burnSquare(0, 9);
+    }
+
+    /**
+     * Checks that the valid squares from every square on a bit board,
+     * match the valid squares on the Board it was created from
+     * @param board Board object to compare against
+     */
+    public void checkValidSquares(Board board){
+
+        BitBoard bitBoard = BitBoard.fromBoard(board);
+        int[] validSquares = new int[bitBoard.getNumberOfSquares()];
+
+        for(int x = 0; x < board.getColumnBoardSize(); x++){
+            for(int y = 0; y < board.getRowBoardSize(); y++){
+
+                HashSet<Integer> expected = new HashSet<>();
+
+                for(Square square: board.getValidSquares(board.getSquare(x, y), -1, -1)){
+                    expected.add(bitBoard.getIndex(square.getX(), square.getY()));
+                }
+
+                HashSet<Integer> actual = new HashSet<>();
+                int noOfValidSquares = bitBoard.getValidSquares(bitBoard.getIndex(x, y), -1, validSquares);
+
+                for(int i = 0; i < noOfValidSquares; i++){
+                    actual.add(validSquares[i]);
+                }
+
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Testing that the 6x6 bit board gives the same valid squares as the Board
+     */
+    @Test
+    public void testSmallValidSquares(){
+
+        assertTrue(BitBoard.fromBoard(board) instanceof SmallBitBoard);
+        checkValidSquares(board);
+    }
+
+    /**
+     * Testing that the 10x10 bit board gives the same valid squares as the Board
+     */
+    @Test
+    public void testLargeValidSquares(){
+
+        assertTrue(BitBoard.fromBoard(largeBoard) instanceof LargeBitBoard);
+        checkValidSquares(largeBoard);
+    }
+
+    /**
+     * Testing that a square which is being moved away from, is treated as empty
+     */
+    @Test
+    public void testSkipSquare(){
+
+        BitBoard bitBoard = BitBoard.fromBoard(largeBoard);
+        int[] validSquares = new int[bitBoard.getNumberOfSquares()];
+
+        // white amazon at d0 moves to d5, and can then shoot back through d0
+        int noOfValidSquares = bitBoard.getValidSquares(bitBoard.getIndex(3, 5), bitBoard.getIndex(3, 0), validSquares);
+
+        ArrayList<Square> expected = largeBoard.getValidSquares(largeBoard.getSquare(3, 5), 3, 0);
+
+        assertEquals(expected.size(), noOfValidSquares);
+    }
+
+    /**
+     * Testing counting of pieces, empty squares and burnt squares
+     */
+    @Test
+    public void testCounts(){
+
+        BitBoard bitBoard = BitBoard.fromBoard(board);
+        BitBoard largeBitBoard = BitBoard.fromBoard(largeBoard);
+
+        assertEquals(board.getNumberOfEmptySquares(), bitBoard.getNumberOfEmptySquares());
+        assertEquals(largeBoard.getNumberOfEmptySquares(), largeBitBoard.getNumberOfEmptySquares());
+
+        assertEquals(2, bitBoard.getNumberOfPieces(true));
+        assertEquals(4, largeBitBoard.getNumberOfPieces(false));
+
+        int[] pieces = new int[4];
+        int noOfPieces = largeBitBoard.getPieces(false, pieces);
+
+        assertEquals(4, noOfPieces);
+
+        for(int i = 0; i < noOfPieces; i++){
+            assertTrue(largeBitBoard.hasPiece(pieces[i], false));
+            assertNotNull(largeBoard.getSquare(largeBitBoard.getX(pieces[i]), largeBitBoard.getY(pieces[i])).getAmazon());
+        }
+
+        assertFalse(bitBoard.allSquaresBurnt());
+
+        Board burntBoard = new Board(4, 4);
+        burntBoard.setupBoard();
+
+        for(int x = 0; x < 4; x++){
+            for(int y = 0; y < 4; y++){
+                burntBoard.burnSquare(x, y);
+            }
+        }
+
+        assertTrue(BitBoard.fromBoard(burntBoard).allSquaresBurnt());
+    }
+
+    /**
+     * Testing that converting to a bit board and back gives the same board
+     */
+    @Test
+    public void testToBoard(){
+
+        assertEquals(board.hashCode(), BitBoard.fromBoard(board).toBoard().hashCode());
+        assertEquals(largeBoard.hashCode(), BitBoard.fromBoard(largeBoard).toBoard().hashCode());
+
+        // a copy shouldn't be affected by changes to the original
+        BitBoard bitBoard = BitBoard.fromBoard(board);
+        BitBoard copy = bitBoard.copy();
+        bitBoard.burnSquare(0);
+
+        assertFalse(copy.isBurnt(0));
+        assertTrue(bitBoard.isBurnt(0));
+    }
+
+    /**
+     * Testing that the move generator gives the same moves as Player.getValidMoves()
+     */
+    @Test
+    public void testMoveGenerator(){
+
+        for(Board testBoard: new Board[]{board, largeBoard}){
+            for(boolean isWhite: new boolean[]{true, false}){
+
+                HashSet<String> expected = new HashSet<>();
+
+                for(Move move: testBoard.getAllPossibleMoves(isWhite)){
+                    expected.add(move.toString());
+                }
+
+                MoveGenerator moveGenerator = new MoveGenerator();
+                int noOfMoves = moveGenerator.generateMoves(BitBoard.fromBoard(testBoard), isWhite);
+
+                HashSet<String> actual = new HashSet<>();
+                Player player = new Player(isWhite, false);
+
+                for(int i = 0; i < noOfMoves; i++){
+                    actual.add(MoveGenerator.toMove(moveGenerator.getMove(i), testBoard, player).toString());
+                }
+
+                assertEquals(expected.size(), noOfMoves);
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    /**
+     * Testing that playing a packed move gives the same board as Board.playMove()
+     */
+    @Test
+    public void testApplyMove(){
+
+        Move move = largeBoard.getAllPossibleMoves(false).get(50);
+
+        BitBoard bitBoard = BitBoard.fromBoard(largeBoard);
+        int packedMove = MoveGenerator.fromMove(move, bitBoard);
+        bitBoard.applyMove(packedMove);
+
+        assertEquals(largeBoard.playMove(move).hashCode(), bitBoard.toBoard().hashCode());
+        assertEquals(move.toString(), MoveGenerator.toMove(packedMove, largeBoard, move.getPlayer()).toString());
+    }
+
+    /**
+     * Testing that undoing a sequence of moves restores the original board
+     */
+    @Test
+    public void testMakeUnmake(){
+
+        BitBoard bitBoard = BitBoard.fromBoard(largeBoard);
+        MoveGenerator moveGenerator = new MoveGenerator();
+        boolean isWhite = true;
+
+        // playing the first valid move for each player in turn
+        for(int i = 0; i < 6; i++){
+
+            assertTrue(moveGenerator.generateMoves(bitBoard, isWhite) > 0);
+            bitBoard.make(moveGenerator.getMove(0));
+            isWhite = !isWhite;
+        }
+
+        assertEquals(6, bitBoard.getNumberOfMovesMade());
+        assertNotEquals(largeBoard.hashCode(), bitBoard.toBoard().hashCode());
+
+        for(int i = 0; i < 6; i++){
+            bitBoard.unmake();
+        }
+
+        assertEquals(0, bitBoard.getNumberOfMovesMade());
+        assertEquals(largeBoard.hashCode(), bitBoard.toBoard().hashCode());
+    }
+
+    /**
+     * Testing that the incrementally updated zobrist key matches the key of a freshly
+     * built board after every move, and returns to the original key once the moves are undone
+     */
+    @Test
+    public void testZobristKey(){
+
+        for(Board testBoard: new Board[]{board, largeBoard}){
+
+            BitBoard bitBoard = BitBoard.fromBoard(testBoard);
+            MoveGenerator moveGenerator = new MoveGenerator();
+            boolean isWhite = true;
+
+            assertEquals(testBoard.getZobristKey(), bitBoard.getZobristKey());
+
+            for(int i = 0; i < 4 && moveGenerator.generateMoves(bitBoard, isWhite) > 0; i++){
+
+                long oldKey = bitBoard.getZobristKey();
+                bitBoard.make(moveGenerator.getMove(0));
+
+                assertNotEquals(oldKey, bitBoard.getZobristKey());
+                assertEquals(bitBoard.toBoard().getZobristKey(), bitBoard.getZobristKey());
+                assertEquals(bitBoard.getZobristKey(), bitBoard.copy().getZobristKey());
+                isWhite = !isWhite;
+            }
+
+            while(bitBoard.getNumberOfMovesMade() > 0){
+                bitBoard.unmake();
+            }
+            assertEquals(testBoard.getZobristKey(), bitBoard.getZobristKey());
+        }
+    }
+
+    /**
+     * Checks that a region index matches the connected components worked out from scratch
+     * @param bitBoard bit board tracking its regions
+     */
+    private void checkRegions(BitBoard bitBoard){
+
+        RegionIndex regionIndex = bitBoard.getRegionIndex();
+        ConnectedComponents components = new ConnectedComponents(bitBoard);
+
+        assertEquals(components.getNumberOfComponents(), regionIndex.getNumberOfRegions());
+
+        int[] componentToRegion = new int[bitBoard.getNumberOfSquares()];
+        int contested = 0;
+
+        for(int component = 0; component < components.getNumberOfComponents(); component++){
+
+            int[] squares = new int[bitBoard.getNumberOfSquares()];
+            int region = -1;
+            int whitePieces = 0;
+            int blackPieces = 0;
+
+            for(int index = 0; index < bitBoard.getNumberOfSquares(); index++){
+
+                if(components.getLabel(index) == component){
+
+                    region = regionIndex.getRegionOf(index);
+                    whitePieces += bitBoard.hasPiece(index, true) ? 1 : 0;
+                    blackPieces += bitBoard.hasPiece(index, false) ? 1 : 0;
+                }
+            }
+
+            componentToRegion[component] = region;
+
+            assertEquals(components.getSize(component), regionIndex.getSize(region));
+            assertEquals(components.getSize(component), regionIndex.getSquares(region, squares));
+            assertEquals(components.getMinX(component), regionIndex.getMinX(region));
+            assertEquals(components.getMinY(component), regionIndex.getMinY(region));
+            assertEquals(components.getMaxX(component), regionIndex.getMaxX(region));
+            assertEquals(components.getMaxY(component), regionIndex.getMaxY(region));
+            assertEquals(whitePieces, regionIndex.getNumberOfPieces(region, true));
+            assertEquals(blackPieces, regionIndex.getNumberOfPieces(region, false));
+
+            if(whitePieces > 0 && blackPieces > 0){
+                contested++;
+            }
+        }
+
+        for(int index = 0; index < bitBoard.getNumberOfSquares(); index++){
+
+            int component = components.getLabel(index);
+            assertEquals(component == -1 ? -1 : componentToRegion[component], regionIndex.getRegionOf(index));
+        }
+
+        assertEquals(contested, regionIndex.getNumberOfContestedRegions());
+        assertEquals(contested > 0, regionIndex.hasContestedRegion());
+    }
+
+    /**
+     * Testing that the tracked regions stay the same as the regions worked out from scratch,
+     * as random moves are played and undone
+     */
+    @Test
+    public void testRegionIndex(){
+
+        SplittableRandom random = new SplittableRandom(1);
+
+        for(Board testBoard: new Board[]{board, largeBoard}){
+
+            BitBoard bitBoard = BitBoard.fromBoard(testBoard);
+            bitBoard.trackRegions();
+            checkRegions(bitBoard);
+
+            MoveGenerator moveGenerator = new MoveGenerator();
+            boolean isWhite = true;
+
+            // playing until neither player can move
+            while(bitBoard.hasAnyMove(isWhite) || bitBoard.hasAnyMove(!isWhite)){
+
+                if(!bitBoard.hasAnyMove(isWhite)){
+                    isWhite = !isWhite;
+                }
+
+                int noOfMoves = moveGenerator.generateMoves(bitBoard, isWhite);
+                bitBoard.make(moveGenerator.getMove(random.nextInt(noOfMoves)));
+                checkRegions(bitBoard);
+                checkRegions(bitBoard.copy());
+
+                isWhite = !isWhite;
+            }
+
+            while(bitBoard.getNumberOfMovesMade() > 0){
+                bitBoard.unmake();
+                checkRegions(bitBoard);
+            }
+        }
+    }
+
+    /**
+     * Testing that sampled moves are always valid, and that every valid move is sampled
+     * about equally often, even though the amazons have different numbers of moves
+     */
+    @Test
+    public void testMoveSampler(){
+
+        SplittableRandom random = new SplittableRandom(1);
+        MoveSampler moveSampler = new MoveSampler();
+        MoveGenerator moveGenerator = new MoveGenerator();
+
+        for(Board testBoard: new Board[]{board, largeBoard}){
+            for(boolean isWhite: new boolean[]{true, false}){
+
+                BitBoard bitBoard = BitBoard.fromBoard(testBoard);
+                int noOfMoves = moveGenerator.generateMoves(bitBoard, isWhite);
+
+                HashMap<Integer, Integer> counts = new HashMap<>();
+
+                for(int i = 0; i < noOfMoves; i++){
+                    counts.put(moveGenerator.getMove(i), 0);
+                }
+
+                int samplesPerMove = 200;
+
+                for(int i = 0; i < noOfMoves * samplesPerMove; i++){
+
+                    int move = moveSampler.sampleMove(bitBoard, isWhite, random);
+
+                    assertTrue(counts.containsKey(move));
+                    counts.put(move, counts.get(move) + 1);
+                }
+
+                // only checking the frequencies on the small board, where there are few enough moves
+                if(testBoard == board){
+                    for(int count: counts.values()){
+                        assertTrue(count > samplesPerMove / 2 && count < samplesPerMove * 2);
+                    }
+                }
+            }
+        }
+
+        Board trappedBoard = new Board(2, 2);
+        trappedBoard.setupBoard();
+        trappedBoard.addPiece(0, 0, new Piece(true));
+        trappedBoard.burnSquare(0, 1);
+        trappedBoard.burnSquare(1, 0);
+        trappedBoard.burnSquare(1, 1);
+
+        assertEquals(-1, moveSampler.sampleMove(BitBoard.fromBoard(trappedBoard), true, random));
+    }
+
+    /**
+     * Testing that counting moves matches the number of moves generated,
+     * on both the Board and bit boards
+     */
+    @Test
+    public void testCountMoves(){
+
+        for(Board testBoard: new Board[]{board, largeBoard}){
+            for(boolean isWhite: new boolean[]{true, false}){
+
+                int expected = testBoard.getAllPossibleMoves(isWhite).size();
+
+                assertEquals(expected, testBoard.countMoves(isWhite));
+                assertEquals(expected, BitBoard.fromBoard(testBoard).countMoves(isWhite));
+                assertEquals(expected > 0, testBoard.hasAnyMove(isWhite));
+                assertEquals(expected > 0, BitBoard.fromBoard(testBoard).hasAnyMove(isWhite));
+            }
+        }
+    }
+
+    /**
+     * Testing that an amazon surrounded by burnt squares has no moves
+     */
+    @Test
+    public void testHasNoMove(){
+
+        Board trappedBoard = new Board(3, 3);
+        trappedBoard.setupBoard();
+        trappedBoard.addPiece(1, 1, new Piece(true));
+        trappedBoard.addPiece(2, 2, new Piece(false));
+
+        for(int x = 0; x < 3; x++){
+            for(int y = 0; y < 3; y++){
+
+                if((x != 1 || y != 1) && (x != 2 || y != 2)){
+                    trappedBoard.burnSquare(x, y);
+                }
+            }
+        }
+
+        BitBoard bitBoard = BitBoard.fromBoard(trappedBoard);
+
+        // neither amazon has an empty square next to it
+        assertFalse(trappedBoard.hasAnyMove(true));
+        assertFalse(trappedBoard.hasAnyMove(false));
+        assertFalse(bitBoard.hasAnyMove(true));
+        assertFalse(bitBoard.hasAnyMove(false));
+        assertEquals(0, bitBoard.countMoves(true));
+        assertEquals(0, trappedBoard.countMoves(false));
+    }
+}
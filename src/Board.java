@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 /** Represents an Amazons board, storing its shape, as well
@@ -9,6 +10,9 @@ public class Board {
 
     private Square[][] squares; // 2-D array of square objects
     private int columnBoardSize, rowBoardSize; // number of columns and number of rows
+    private QueenRays queenRays; // squares along each queen direction, shared by all boards of this size
+    private Zobrist zobrist; // zobrist keys for each square, shared by all boards of this size
+    private long[] zobristKeys; // zobrist key of this board under each transformation, kept up to date as squares change
 
     /**
      * Constructor for a board object, number of columns and rows must be given
@@ -19,6 +23,10 @@ public class Board {
         squares = new Square[columnBoardSize][rowBoardSize];
         this.columnBoardSize = columnBoardSize;
         this.rowBoardSize = rowBoardSize;
+        this.queenRays = QueenRays.getQueenRays(columnBoardSize, rowBoardSize);
+        this.zobrist = Zobrist.getZobrist(columnBoardSize, rowBoardSize);
+        this.zobristKeys = new long[zobrist.getNumberOfTransformations()];
+        Arrays.fill(zobristKeys, zobrist.getSizeKey());
     }
 
     /**
@@ -101,11 +109,29 @@ public class Board {
      * @param startY Y co-ordinate on the original board that the partition will start from
      * @param endX X co-ordinate on the original board that the partition will end at
      * @param endY Y co-ordinate on the original board that the partition will end at
-     * @param componentCounter Used when considering components, for splitting a board. -1 means we don't consider components
+     * @param componentCounter Used when considering components, for splitting a board. -1 means we don't consider components,
+     *                         otherwise squares outside that component of this board's ConnectedComponents are burnt
      * @return The new board object, a partition of the original board
      */
     public Board newBoard(int startX, int startY, int endX, int endY, int componentCounter){
 
+        ConnectedComponents components = componentCounter == -1 ? null : new ConnectedComponents(this);
+
+        return newBoard(startX, startY, endX, endY, components, componentCounter);
+    }
+
+    /**
+     * Given a board object, and a partition to select, returns a new board which is a copy of that partition
+     * @param startX X co-ordinate on the original board that the partition will start from
+     * @param startY Y co-ordinate on the original board that the partition will start from
+     * @param endX X co-ordinate on the original board that the partition will end at
+     * @param endY Y co-ordinate on the original board that the partition will end at
+     * @param components Connected components of this board, or null if we don't consider components
+     * @param componentCounter Component to copy, squares in any other component are burnt
+     * @return The new board object, a partition of the original board
+     */
+    private Board newBoard(int startX, int startY, int endX, int endY, ConnectedComponents components, int componentCounter){
+
         // creating new board, with new size
         int newColumnSize = endX - startX + 1;
         int newRowSize = endY - startY + 1;
@@ -135,7 +161,7 @@ public class Board {
                 Square oldSquare = this.getSquare(x, y);
 
                 // We aren't dealing with components
-                if(componentCounter == -1){
+                if(components == null){
 
                     newBoard.copySquare(oldSquare, newX, newY);
 
@@ -143,7 +169,7 @@ public class Board {
                 } else {
 
                     // not part of current component, then we just burn the square
-                    if(oldSquare.getX() != componentCounter){
+                    if(components.getLabel(x, y) != componentCounter){
                         newBoard.burnSquare(newX, newY);
 
                     // part of current component
@@ -348,79 +374,20 @@ public class Board {
 
         ArrayList<Board> partitions = new ArrayList<>();
 
-        // making a copy of the board that we can manipulate
         // simplify board first, to remove any edge rows or columns that aren't needed
-        Board boardCopy = this.newBoard( 0, 0, this.getColumnBoardSize() - 1, this.getRowBoardSize() - 1, -1).simplify();
+        // the squares aren't changed, so this doesn't need to be a copy
+        Board boardCopy = this.simplify();
 
-        int componentCounter = 0;
-
-        // 1. Set all squares x-coordinate to -1 initially
-        for(int x = 0; x < boardCopy.getColumnBoardSize(); x++){
-            for(int y = 0; y < boardCopy.getRowBoardSize(); y++){
-                boardCopy.getSquare(x, y).setX(-1);
-            }
-        }
+        // 1. Group all unburnt squares into their connected components, in a single pass
+        ConnectedComponents components = new ConnectedComponents(boardCopy);
 
-        // 2. Group all unburnt squares into their connected components
-        for(int x = 0; x < boardCopy.getColumnBoardSize(); x++){
-            for(int y = 0; y < boardCopy.getRowBoardSize(); y++){
+        // 2. Create a partition board for each component, using its bounding box
+        for(int i = 0; i < components.getNumberOfComponents(); i++){
 
-                Square square = boardCopy.getSquare(x, y);
-
-                // find a square that hasn't been visited yet, and isn't burnt
-                if(square.getX() == -1 && !square.isBurnt()){
-
-                    boardCopy.connectedComponentsDFS(square, componentCounter);
-                    componentCounter++;
-                }
-            }
-        }
-
-        // 3. Create a partition board for each component
-        for(int i = 0; i < componentCounter; i++){
-
-            // 3.1. Extract dimensions information for each component
-            boolean firstSquare = true;
-            int minX, minY, maxX, maxY;
-            minX = 0;
-            maxX = 0;
-            minY = 0;
-            maxY = 0;
-
-            for(int x = 0; x < boardCopy.getColumnBoardSize(); x++) {
-                for (int y = 0; y < boardCopy.getRowBoardSize(); y++) {
-
-                    Square square = boardCopy.getSquare(x, y);
-
-                    // found a square in the current component
-                    if(square.getX() == i){
-
-                        if(firstSquare){
-                            minX = x;
-                            maxX = x;
-                            minY = y;
-                            maxY = y;
-                            firstSquare = false;
-                        }
-
-                        if(x < minX){
-                            minX = x;
-                        }
-                        if(x > maxX){
-                            maxX = x;
-                        }
-                        if(y < minY){
-                            minY = y;
-                        }
-                        if(y > maxY){
-                            maxY = y;
-                        }
-                    }
-                }
-            }
+            int minX = components.getMinX(i);
+            int minY = components.getMinY(i);
 
-            // 3.2. Use dimensions to create a new board partition
-            partitions.add(boardCopy.newBoard(minX, minY, maxX, maxY, i));
+            partitions.add(boardCopy.newBoard(minX, minY, components.getMaxX(i), components.getMaxY(i), components, i));
 
             // Adding the partitions starting square location to the arraylist passed into the method
             partitionStartSquares.add(new Square(minX, minY, null, false));
@@ -428,77 +395,6 @@ public class Board {
         return partitions;
     }
 
-    /**
-     * DFS-based algorithm to give all nodes in a given squares component the same value.
-     * @param square unburnt square, with a current value of -1
-     * @param componentCounter next component value to be used
-     */
-    private void connectedComponentsDFS(Square square, int componentCounter){
-
-        for(int x = 0; x < this.getColumnBoardSize(); x++){
-            for(int y = 0; y < this.getRowBoardSize(); y++){
-
-                // We have located the correct square
-                if(this.getSquare(x, y).equals(square)){
-
-                    // add square to current component
-                    this.getSquare(x, y).setX(componentCounter);
-
-                    // get list of adjacent squares that are also unburnt
-                    ArrayList<Square> unburntAdjacentSquares = this.getSurroundingUnBurntSquares(square);
-
-                    for(Square adjacentSquare: unburntAdjacentSquares){
-
-                        // if adjacent unburnt square is also unvisited, visit that square recursively
-                        if(adjacentSquare.getX() == -1){
-                            this.connectedComponentsDFS(adjacentSquare, componentCounter);
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Gets a list of the squares that surround a given square, and aren't burnt.
-     * @param originalSquare The given square
-     * @return An ArrayList of the surrounding unburnt squares
-     */
-    private ArrayList<Square> getSurroundingUnBurntSquares(Square originalSquare){
-
-        ArrayList<Square> unburntSquares = new ArrayList<Square>();
-
-        for(int x = 0; x < this.getColumnBoardSize(); x++) {
-            for (int y = 0; y < this.getRowBoardSize(); y++) {
-
-                // We have located the correct square
-                if (this.getSquare(x, y).equals(originalSquare)) {
-
-                    ArrayList<Square> squares = new ArrayList<Square>();
-
-                    squares.add(this.getSquare(x + 1, y));
-                    squares.add(this.getSquare(x - 1, y));
-                    squares.add(this.getSquare(x, y + 1));
-                    squares.add(this.getSquare(x, y - 1));
-
-                    // diagonals also count
-                    squares.add(this.getSquare(x - 1, y - 1));
-                    squares.add(this.getSquare(x - 1, y + 1));
-                    squares.add(this.getSquare(x + 1, y - 1));
-                    squares.add(this.getSquare(x + 1, y + 1));
-
-                    for(Square square: squares){
-
-                        if(square != null && !square.isBurnt()){
-                            unburntSquares.add(square);
-                        }
-                    }
-                }
-            }
-        }
-        return unburntSquares;
-    }
-
     /**
      * Applying a reflection in the horizontal perpendicular bisector of the current board object.
      * @return Horizontally "flipped" board object
@@ -672,6 +568,103 @@ public class Board {
 
     }
 
+    /**
+     * Counts the squares that can be moved to from a starting square, without creating a list of them
+     * @param startIndex index of the square we are starting from, y * columns + x
+     * @param skipIndex index of a square that should be treated as empty, or -1
+     * @return number of squares that can be moved to
+     */
+    private int countValidSquares(int startIndex, int skipIndex){
+
+        int validSquares = 0;
+
+        for(int direction = 0; direction < QueenRays.NUMBER_OF_DIRECTIONS; direction++){
+
+            for(int index: queenRays.getRay(startIndex, direction)){
+
+                if(isSquareEmpty(squares[queenRays.getX(index)][queenRays.getY(index)]) || index == skipIndex){
+                    validSquares++;
+                } else {
+                    break;
+                }
+            }
+        }
+        return validSquares;
+    }
+
+    /**
+     * Counts the possible moves for a given colour, on the current board, by summing the number of
+     * squares that can be shot at from each square that can be moved to. No Move or Square lists are created.
+     * @param isWhite indicates what colour to check, true for white, false for black
+     * @return The number of possible moves for the given colour, on the current board
+     */
+    public int countMoves(boolean isWhite){
+
+        int moves = 0;
+
+        for(int x = 0; x < columnBoardSize; x++){
+            for(int y = 0; y < rowBoardSize; y++){
+
+                Piece piece = squares[x][y].getAmazon();
+
+                // only considering amazons of the colour we are looking for
+                if(piece == null || piece.isWhite() != isWhite){
+                    continue;
+                }
+
+                int startIndex = y * columnBoardSize + x;
+
+                for(int direction = 0; direction < QueenRays.NUMBER_OF_DIRECTIONS; direction++){
+
+                    for(int endIndex: queenRays.getRay(startIndex, direction)){
+
+                        if(!isSquareEmpty(squares[queenRays.getX(endIndex)][queenRays.getY(endIndex)])){
+                            break;
+                        }
+
+                        // every square that can be shot at, from this end square, is a separate move
+                        moves += countValidSquares(endIndex, startIndex);
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Checks if a given colour has any possible move, on the current board. An amazon that can move
+     * can always shoot back at the square it came from, so this only needs to find one amazon with an
+     * empty square next to it, and stops as soon as it does.
+     * @param isWhite indicates what colour to check, true for white, false for black
+     * @return true if the colour can move, false otherwise
+     */
+    public boolean hasAnyMove(boolean isWhite){
+
+        for(int x = 0; x < columnBoardSize; x++){
+            for(int y = 0; y < rowBoardSize; y++){
+
+                Piece piece = squares[x][y].getAmazon();
+
+                if(piece == null || piece.isWhite() != isWhite){
+                    continue;
+                }
+
+                int startIndex = y * columnBoardSize + x;
+
+                for(int direction = 0; direction < QueenRays.NUMBER_OF_DIRECTIONS; direction++){
+
+                    int[] ray = queenRays.getRay(startIndex, direction);
+
+                    // first square along the ray is the only one that needs checking
+                    if(ray.length > 0 && isSquareEmpty(squares[queenRays.getX(ray[0])][queenRays.getY(ray[0])])){
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Plays a move on a copy of the current board, returning the newly updated board
      * @param move Move to be played
@@ -733,56 +726,57 @@ public class Board {
 
     /**
      * Returns a SmallestHashValue object for the current board, containing the smallest
-     * hash value board, its associated hash value, and the transformation applied to the
-     * current board to get to the smallest hash value board
+     * zobrist key of the board under any transformation, and the transformation applied to
+     * the current board to get to the board with that key. The keys of every transformed
+     * board are kept up to date as squares change, so no boards are built unless the
+     * smallest hash board is asked for.
      * @return SmallestHashValue object for the current board object
      */
     public SmallestHashValue getSmallestHashValue(){
 
-        // 1. Adding all board variants to a list
-        ArrayList<Board> variants = new ArrayList<>();
-
-        variants.add(this);
-        variants.add(this.flipHorizontal());
-        variants.add(this.flipVertical());
-        variants.add(this.rotate().rotate());
-
-        // Special case- if board is a square, 4 more possible variants
-        if(this.getColumnBoardSize() == this.getRowBoardSize()){
-
-            variants.add(this.rotate());
-            variants.add(this.rotate().rotate().rotate());
-            variants.add(this.rotate().flipVertical());
-            variants.add(this.rotate().rotate().rotate().flipVertical());
-        }
-
-        // 2. Standard find min algorithm to retrieve the smallest hash value from list
-
-        Integer minValue = this.hashCode();
+        // Standard find min algorithm, over the key of each transformation
+        long minValue = zobristKeys[0];
 
         // Indicates what variation was applied to get the minimum Hash value
         int boardVariationType = 0;
 
-        for(int i = 0; i < variants.size(); i++){
+        for(int i = 1; i < zobristKeys.length; i++){
 
-            Integer hashValue = variants.get(i).hashCode();
-
-            if(hashValue < minValue){
-                minValue = hashValue;
+            if(zobristKeys[i] < minValue){
+                minValue = zobristKeys[i];
                 boardVariationType = i;
             }
         }
 
-        // 3. Storing smallest hash board, value & transformation from current board
         SmallestHashValue smallestHashValue = new SmallestHashValue();
 
         smallestHashValue.hashValue = minValue;
         smallestHashValue.transformation = boardVariationType;
-        smallestHashValue.board = variants.get(boardVariationType);
 
         return smallestHashValue;
     }
 
+    /**
+     * Builds a transformed copy of the current board
+     * @param transformation 0 = none, 1 = flipHorizontal(), 2 = flipVertical(), 3 = rotate() twice,
+     *                       4 = rotate(), 5 = rotate() three times, 6 = rotate() then flipVertical(),
+     *                       7 = rotate() three times then flipVertical()
+     * @return Transformed Board object
+     */
+    public Board getTransformedBoard(int transformation){
+
+        switch(transformation){
+            case 1: return this.flipHorizontal();
+            case 2: return this.flipVertical();
+            case 3: return this.rotate().rotate();
+            case 4: return this.rotate();
+            case 5: return this.rotate().rotate().rotate();
+            case 6: return this.rotate().flipVertical();
+            case 7: return this.rotate().rotate().rotate().flipVertical();
+            default: return this;
+        }
+    }
+
     /**
      * Rotates a squares co-ordinates 90 degrees clockwise
      * @param square Square to be rotated
@@ -867,9 +861,21 @@ public class Board {
      */
     public class SmallestHashValue {
 
-        int hashValue;
+        long hashValue;
         int transformation;
-        Board board;
+        private Board board;
+
+        /**
+         * Gets the smallest hash board, building it the first time it is needed
+         * @return the current board, transformed to have the smallest hash value
+         */
+        public Board getBoard(){
+
+            if(board == null){
+                board = getTransformedBoard(transformation);
+            }
+            return board;
+        }
     }
 
     /**
@@ -992,37 +998,81 @@ public class Board {
      */
     public GameValue evaluate(int depth){
 
-        ArrayList<Move> blackMoves = this.getAllPossibleMoves(false);
-        ArrayList<Move> whiteMoves = this.getAllPossibleMoves(true);
+        // the player objects are only used to store in each Move object
+        AIPlayer blackPlayer = new AIPlayer(false);
+        blackPlayer.addPieces(this.getPieces(false));
+
+        AIPlayer whitePlayer = new AIPlayer(true);
+        whitePlayer.addPieces(this.getPieces(true));
+
+        // playing and undoing moves on a single bit board, rather than copying the board for each move
+        return evaluate(BitBoard.fromBoard(this), depth, new ArrayList<>(), blackPlayer, whitePlayer);
+    }
+
+    /**
+     * Recursively evaluates a bit board into a GameValue object, using make() and unmake()
+     * to walk through the game tree. Move objects are only created for the options of this
+     * board, using its own Square objects, as only those moves are ever played, offset or
+     * transformed. Deeper options are left without a move.
+     * @param bitBoard bit board for the current position, left unchanged once the method returns
+     * @param depth Depth of current recursive call
+     * @param moveGenerators one move generator for each depth, so their move buffers can be reused
+     * @param blackPlayer Player object used for black (left) moves
+     * @param whitePlayer Player object used for white (right) moves
+     * @return GameValue object for the current position
+     */
+    private GameValue evaluate(BitBoard bitBoard, int depth, ArrayList<MoveGenerator> moveGenerators,
+                               Player blackPlayer, Player whitePlayer){
+
+        if(moveGenerators.size() <= depth){
+            moveGenerators.add(new MoveGenerator());
+        }
+
+        MoveGenerator moveGenerator = moveGenerators.get(depth);
 
         ArrayList<GameValue> left = new ArrayList<>();
         ArrayList<GameValue> right = new ArrayList<>();
 
-        for(Move move: blackMoves){
+        int noOfBlackMoves = moveGenerator.generateMoves(bitBoard, false);
+
+        for(int i = 0; i < noOfBlackMoves; i++){
 
-            Board newBoard = this.playMove(move);
+            int move = moveGenerator.getMove(i);
 
-            GameValue leftGame = newBoard.evaluate(depth + 1);
+            bitBoard.make(move);
+            GameValue leftGame = evaluate(bitBoard, depth + 1, moveGenerators, blackPlayer, whitePlayer);
+            bitBoard.unmake();
 
             // checking this isn't a duplicate
             if(!leftGame.isIn(left)){
 
-                leftGame.move = move;
+                if(depth == 0){
+                    leftGame.move = MoveGenerator.toMove(move, this, blackPlayer);
+                }
+
                 leftGame.simplify();
                 left.add(leftGame);
             }
         }
 
-        for(Move move: whiteMoves){
+        // the black moves are no longer needed, so the same generator can be reused
+        int noOfWhiteMoves = moveGenerator.generateMoves(bitBoard, true);
 
-            Board newBoard = this.playMove(move);
+        for(int i = 0; i < noOfWhiteMoves; i++){
 
-            GameValue rightGame = newBoard.evaluate(depth + 1);
+            int move = moveGenerator.getMove(i);
+
+            bitBoard.make(move);
+            GameValue rightGame = evaluate(bitBoard, depth + 1, moveGenerators, blackPlayer, whitePlayer);
+            bitBoard.unmake();
 
             // checking this isn't a duplicate
             if(!rightGame.isIn(right)){
 
-                rightGame.move = move;
+                if(depth == 0){
+                    rightGame.move = MoveGenerator.toMove(move, this, whitePlayer);
+                }
+
                 rightGame.simplify();
                 right.add(rightGame);
             }
@@ -1060,7 +1110,7 @@ public class Board {
         SmallestHashValue smallestHash = getSmallestHashValue();
 
         // Evaluating the smallest hash board, to get its GameValue
-        GameValue smallestHashGameValue = smallestHash.board.evaluate(0);
+        GameValue smallestHashGameValue = smallestHash.getBoard().evaluate(0);
         smallestHashGameValue.simplify();
 
         System.out.println("Adding to database");
@@ -1149,6 +1199,60 @@ public class Board {
         }
     }
 
+    /**
+     * Gets the zobrist key of the current board, which is updated every time a square changes,
+     * so unlike hashCode() it doesn't need to look at every square
+     * @return 64-bit zobrist key of the board
+     */
+    public long getZobristKey(){
+        return this.zobristKeys[0];
+    }
+
+    /**
+     * Gets the zobrist key that the current board would have after a transformation,
+     * without building the transformed board
+     * @param transformation transformation number, as used by getSmallestHashValue()
+     * @return 64-bit zobrist key of the transformed board
+     */
+    public long getZobristKey(int transformation){
+        return this.zobristKeys[transformation];
+    }
+
+    /**
+     * Updates the board's zobrist keys, for every transformation, after a square has changed
+     * @param index index of the square that changed
+     * @param oldBurnt true if the square was burnt before the change
+     * @param oldAmazon Piece on the square before the change, or null
+     * @param newBurnt true if the square is burnt after the change
+     * @param newAmazon Piece on the square after the change, or null
+     */
+    void updateZobristKeys(int index, boolean oldBurnt, Piece oldAmazon, boolean newBurnt, Piece newAmazon){
+
+        for(int transformation = 0; transformation < zobristKeys.length; transformation++){
+
+            int transformedIndex = zobrist.getTransformedIndex(transformation, index);
+
+            zobristKeys[transformation] ^= zobrist.getSquareKey(transformedIndex, oldBurnt, oldAmazon)
+                    ^ zobrist.getSquareKey(transformedIndex, newBurnt, newAmazon);
+        }
+    }
+
+    /**
+     * Checks if "this" board has exactly the same squares as another board, without any transformations.
+     * The zobrist keys are compared first, so boards that differ are usually rejected without
+     * checking any squares.
+     * @param other Board object to compare against
+     * @return true if both boards have the same size and squares, false otherwise
+     */
+    public boolean isIdentical(Board other){
+
+        if(this.getZobristKey() != other.getZobristKey() || this.columnBoardSize != other.columnBoardSize
+                || this.rowBoardSize != other.rowBoardSize){
+            return false;
+        }
+        return boardsEqual(this, other) && boardsEqual(other, this);
+    }
+
     /**
      * Getter for the columnBoardSize
      * @return this boards objects columnBoardSize
@@ -1183,7 +1287,18 @@ public class Board {
      * @param y square y co-ordinate
      */
     public void createSquare(int x, int y){
+
+        int index = y * columnBoardSize + x;
+
+        // detaching any square being replaced, and removing it from the zobrist keys
+        if(this.squares[x][y] != null){
+            Square oldSquare = this.squares[x][y];
+            updateZobristKeys(index, oldSquare.isBurnt(), oldSquare.getAmazon(), false, null);
+            oldSquare.setBoard(null, 0);
+        }
+
         this.squares[x][y] = new Square(x, y, null, false);
+        this.squares[x][y].setBoard(this, index);
     }
 
     /**
@@ -1244,107 +1359,21 @@ public class Board {
 
         ArrayList<Square> validSquares = new ArrayList<Square>();
 
-        int startX = startSquare.getX();
-        int startY = startSquare.getY();
+        int startIndex = startSquare.getY() * columnBoardSize + startSquare.getX();
+        int skipIndex = skipX < 0 || skipY < 0 ? -1 : skipY * columnBoardSize + skipX;
 
-        for(int x = startX - 1; x >= 0; x--) {
+        // checking left, right, up, down, left/up, left/down, right/up and right/down
+        for(int direction = 0; direction < QueenRays.NUMBER_OF_DIRECTIONS; direction++){
 
-            // checking left
-            if (isSquareEmpty(squares[x][startY]) || x == skipX && startY == skipY) {
-                validSquares.add(squares[x][startY]);
-            } else {
-                break;
-            }
-        }
-
-        for(int x = startX + 1; x < columnBoardSize; x++) {
-
-            // checking right
-            if (isSquareEmpty(squares[x][startY]) || x == skipX && startY == skipY) {
-                validSquares.add(squares[x][startY]);
-            } else {
-                break;
-            }
-        }
-
-        for (int y = startY + 1; y < rowBoardSize; y++) {
-            // checking up
-            if(isSquareEmpty(squares[startX][y]) || startX == skipX && y == skipY){
-                validSquares.add(squares[startX][y]);
-            } else {
-                break;
-            }
-        }
+            for(int index: queenRays.getRay(startIndex, direction)){
 
+                Square square = squares[queenRays.getX(index)][queenRays.getY(index)];
 
-        for(int y = startY - 1; y >= 0; y--) {
-            // checking down
-            if(isSquareEmpty(squares[startX][y]) || startX == skipX && y == skipY){
-                validSquares.add(squares[startX][y]);
-            } else {
-                break;
-            }
-
-        }
-
-        outerloop:
-        for(int x = startX - 1; x >= 0; x--) {
-            for (int y = startY + 1; y < rowBoardSize; y++) {
-
-                if (Math.abs(startX - x) == Math.abs(startY - y)) {
-                    // checking left/up
-                    if (isSquareEmpty(squares[x][y]) || x == skipX && y == skipY) {
-                        validSquares.add(squares[x][y]);
-                    } else {
-                        break outerloop;
-                    }
-                }
-            }
-        }
-
-        outerloop:
-        for(int x = startX - 1; x >= 0; x--) {
-            for(int y = startY - 1; y >= 0; y--) {
-
-                if (Math.abs(startX - x) == Math.abs(startY - y)) {
-                    // checking left/down
-                    if (isSquareEmpty(squares[x][y]) || x == skipX && y == skipY) {
-                        validSquares.add(squares[x][y]);
-                    } else {
-                        break outerloop;
-                    }
-                }
-            }
-        }
-
-        outerloop:
-        for(int x = startX + 1; x < columnBoardSize; x++) {
-            for (int y = startY + 1; y < rowBoardSize; y++) {
-
-                if (Math.abs(startX - x) == Math.abs(startY - y)) {
-
-                    // checking right/up
-                    if (isSquareEmpty(squares[x][y]) || x == skipX && y == skipY) {
-                        validSquares.add(squares[x][y]);
-                    } else {
-                        break outerloop;
-                    }
-                }
-
-            }
-        }
-
-        outerloop:
-        for(int x = startX + 1; x < columnBoardSize; x++) {
-            for(int y = startY - 1; y >= 0; y--){
-
-                if(Math.abs(startX - x) == Math.abs(startY - y)) {
-                    // checking right/down
-                    if (isSquareEmpty(squares[x][y]) || x == skipX && y == skipY) {
-                        validSquares.add(squares[x][y]);
-                    } else {
-                        break outerloop;
-                    }
+                // walking along the ray until we reach a square that isn't empty
+                if(isSquareEmpty(square) || index == skipIndex){
+                    validSquares.add(square);
+                } else {
+                    break;
                 }
             }
         }
@@ -328,6 +328,68 @@ public class BoardTests {
 
     }
 
+    /**
+     * Testing that connected components are labelled in one pass, with diagonally
+     * touching squares in the same component, and their bounding boxes and masks found
+     *   ---------------------
+     * 3 |   |   | X |   |   |
+     *   ---------------------
+     * 2 | X | X | X |   |   |
+     *   ---------------------
+     * 1 |   |   | X | X | X |
+     *   ---------------------
+     * 0 |   | X |   | X |   |
+     *   ---------------------
+     *     A   B   C   D   E
+     */
+    @Test
+    public void testConnectedComponents(){
+
+        Board board1 = new Board(5, 4);
+        board1.setupBoard();
+
+        int[][] burntSquares = {{1, 0}, {3, 0}, {2, 1}, {3, 1}, {4, 1}, {0, 2}, {1, 2}, {2, 2}, {2, 3}};
+
+        for(int[] square: burntSquares){
+            board1.burnSquare(square[0], square[1]);
+        }
+
+        ConnectedComponents components = new ConnectedComponents(board1);
+
+        // a0, a1 & b1 join c0 diagonally, e0 is on its own, and the top left and top right are separate
+        assertEquals(4, components.getNumberOfComponents());
+        assertEquals(components.getLabel(0, 0), components.getLabel(2, 0));
+        assertEquals(-1, components.getLabel(1, 0));
+        assertEquals(4, components.getSize(0));
+        assertEquals(1, components.getSize(components.getLabel(4, 0)));
+
+        int topLeft = components.getLabel(0, 3);
+        assertEquals(2, components.getSize(topLeft));
+        assertEquals(1, components.getMaxX(topLeft));
+
+        int topRight = components.getLabel(3, 3);
+        assertEquals(3, components.getMinX(topRight));
+        assertEquals(2, components.getMinY(topRight));
+        assertEquals(4, components.getMaxX(topRight));
+        assertEquals(3, components.getMaxY(topRight));
+        assertEquals(4, components.getSize(topRight));
+
+        // each square's bit is only set in its own component's mask
+        for(int index = 0; index < 20; index++){
+            for(int component = 0; component < components.getNumberOfComponents(); component++){
+
+                boolean inMask = (components.getMask(component)[index >>> 6] & 1L << index) != 0;
+                assertEquals(components.getLabel(index) == component, inMask);
+            }
+        }
+
+        // a large open board is a single component, without overflowing the stack
+        Board largeBoard = new Board(16, 16);
+        largeBoard.setupBoard();
+        assertEquals(1, new ConnectedComponents(largeBoard).getNumberOfComponents());
+        assertEquals(256, new ConnectedComponents(BitBoard.fromBoard(largeBoard)).getSize(0));
+    }
+
     /**
      * Testing evaluating of a 3 square line board partition
      *  with one of each piece, which evaluates to "1"
@@ -415,6 +477,62 @@ public class BoardTests {
         GameValue gameValue = board.evaluate();
     }
 
+    /**
+     * Testing that every move of an evaluated board holds the amazon it moves, of
+     * the right colour, and that the deeper options, which are never played, have no move
+     */
+    @Test
+    public void testEvaluateMovePieces(){
+
+        Board board = new Board(3, 3);
+        board.setupBoard();
+        board.burnSquare(2,2);
+
+        Piece blackPiece = new Piece(false);
+        blackPiece.setPosition(board.getSquare(0,1));
+        board.addPiece(0, 1, blackPiece);
+
+        Piece whitePiece = new Piece(true);
+        whitePiece.setPosition(board.getSquare(1,0));
+        board.addPiece(1, 0, whitePiece);
+
+        GameValue gameValue = board.evaluate(0);
+
+        assertTrue(gameValue.left.size() > 0);
+        assertTrue(gameValue.right.size() > 0);
+        checkMovePieces(gameValue, 0);
+    }
+
+    /**
+     * Checks the options of a game value, and all the game values below it, only have a move
+     * at the top, which holds the amazon on its starting square
+     * @param gameValue game value to check
+     * @param depth depth of the game value, 0 for the top
+     */
+    private void checkMovePieces(GameValue gameValue, int depth){
+
+        for(int side = 0; side < 2; side++){
+
+            ArrayList<GameValue> options = side == 0 ? gameValue.left : gameValue.right;
+
+            for(GameValue option: options){
+
+                if(depth > 0){
+
+                    assertNull(option.move);
+
+                } else {
+
+                    assertNotNull(option.move.getPiece());
+                    assertEquals(side == 1, option.move.getPiece().isWhite());
+                    assertSame(option.move.getStartPosition().getAmazon(), option.move.getPiece());
+                }
+
+                checkMovePieces(option, depth + 1);
+            }
+        }
+    }
+
     /**
      * Testing evaluating an empty board, should evaluate to "0"
      */
@@ -535,6 +653,45 @@ public class BoardTests {
         }
     }
 
+    /**
+     * Testing that the zobrist key is updated as squares change, whether they are changed
+     * through the board or directly, and that playing a move gives the same key as a new board
+     */
+    @Test
+    public void testZobristKey(){
+
+        Board board = new Board(3, 2);
+        board.setupBoard();
+
+        Piece blackPiece = new Piece(false);
+        board.addPiece(0, 1, blackPiece);
+        board.addPiece(1, 0, new Piece(true));
+
+        long zobristKey = board.getZobristKey();
+
+        board.getSquare(0, 1).removeAmazon();
+        assertNotEquals(zobristKey, board.getZobristKey());
+        board.addPiece(0, 1, blackPiece);
+        assertEquals(zobristKey, board.getZobristKey());
+
+        Board copy = board.newBoard(0, 0, 2, 1, -1);
+        assertEquals(zobristKey, copy.getZobristKey());
+        assertTrue(board.isIdentical(copy));
+
+        copy.burnSquare(2, 1);
+        assertNotEquals(zobristKey, copy.getZobristKey());
+        assertFalse(board.isIdentical(copy));
+
+        // replacing the squares clears the board, and its key
+        copy.setupBoard();
+        assertEquals(new Board(3, 2).getZobristKey(), copy.getZobristKey());
+
+        Move move = board.getAllPossibleMoves(true).get(0);
+        Board newBoard = board.playMove(move);
+        assertEquals(newBoard.newBoard(0, 0, 2, 1, -1).getZobristKey(), newBoard.getZobristKey());
+        assertEquals(zobristKey, board.getZobristKey());
+    }
+
     /**
      * Testing a board is inverted correctly, including the piece's stored positions
      */
@@ -654,6 +811,63 @@ public class BoardTests {
         }
     }
 
+    /**
+     * Testing that the zobrist key kept for each transformation matches the key of the transformed
+     * board, and that moves on each transformed board are correctly transformed back to this board
+     *   -------------
+     * 2 |   | X |   |
+     *   -------------
+     * 1 | B |   |   |
+     *   -------------
+     * 0 | W | X | X |
+     *   -------------
+     *     A   B   C
+     */
+    @Test
+    public void testTransformations(){
+
+        board = new Board(3, 3);
+        board.setupBoard();
+
+        Piece blackPiece = new Piece(false);
+        ArrayList<Piece> blackPieces = new ArrayList<>();
+        blackPieces.add(blackPiece);
+        board.addPiece(0, 1, blackPiece);
+
+        Piece whitePiece = new Piece(true);
+        ArrayList<Piece> whitePieces = new ArrayList<>();
+        whitePieces.add(whitePiece);
+        board.addPiece(0, 0, whitePiece);
+
+        board.burnSquare(1, 2);
+        board.burnSquare(1, 0);
+        board.burnSquare(2, 0);
+
+        for(int transformation = 0; transformation < 8; transformation++){
+
+            Board transformedBoard = board.getTransformedBoard(transformation);
+            assertEquals(transformedBoard.getZobristKey(), board.getZobristKey(transformation));
+
+            Board.SmallestHashValue smallestHash = board.new SmallestHashValue();
+            smallestHash.transformation = transformation;
+
+            GameValue gameValue = board.transformGameValue(smallestHash, transformedBoard.evaluate(0));
+            checkMoves(gameValue, board, blackPieces, whitePieces);
+        }
+
+        // the smallest key is the key of the board that would be stored in the database
+        Board.SmallestHashValue smallestHash = board.getSmallestHashValue();
+        assertEquals(smallestHash.hashValue, smallestHash.getBoard().getZobristKey());
+
+        // rectangular boards only have 4 transformations, which keep their shape
+        Board rectangularBoard = board.newBoard(0, 0, 2, 1, -1);
+
+        for(int transformation = 0; transformation < 4; transformation++){
+            assertEquals(rectangularBoard.getTransformedBoard(transformation).getZobristKey(),
+                    rectangularBoard.getZobristKey(transformation));
+        }
+    }
+
     /**
      * Testing that moves are transformed to the smallest hash version,
      * and correctly back after being retrieved from the endgame database.
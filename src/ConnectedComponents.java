@@ -0,0 +1,196 @@
+import java.util.Arrays;
+
+/**
+ * Labels the connected components of the unburnt squares on a board, where squares
+ * are connected if they are next to each other, including diagonally. Squares are
+ * referred to by index, y * columns + x, as in BitBoard. The labelling is an iterative
+ * flood fill, so each square is visited once and large regions can't overflow the stack,
+ * and each component's squares and bounding box are recorded during the same pass.
+ * Components are numbered in the order Board.split() has always found them, scanning
+ * each column in turn from the bottom.
+ */
+public class ConnectedComponents {
+
+    private int columnBoardSize, rowBoardSize;
+    private int[] labels; // component number of each square index, -1 for burnt squares
+    private int numberOfComponents;
+
+    private int[] minX, minY, maxX, maxY; // bounding box of each component
+    private int[] sizes; // number of squares in each component
+    private long[][] masks; // masks[component] = bits of the squares in that component
+
+    /**
+     * Labels the components of the unburnt squares of a Board object
+     * @param board Board object to label
+     */
+    public ConnectedComponents(Board board){
+
+        this(board.getColumnBoardSize(), board.getRowBoardSize());
+
+        boolean[] burnt = new boolean[labels.length];
+
+        for(int index = 0; index < labels.length; index++){
+            burnt[index] = board.getSquare(index % columnBoardSize, index / columnBoardSize).isBurnt();
+        }
+        label(burnt);
+    }
+
+    /**
+     * Labels the components of the unburnt squares of a BitBoard object
+     * @param board BitBoard object to label
+     */
+    public ConnectedComponents(BitBoard board){
+
+        this(board.getColumnBoardSize(), board.getRowBoardSize());
+
+        boolean[] burnt = new boolean[labels.length];
+
+        for(int index = 0; index < labels.length; index++){
+            burnt[index] = board.isBurnt(index);
+        }
+        label(burnt);
+    }
+
+    private ConnectedComponents(int columnBoardSize, int rowBoardSize){
+        this.columnBoardSize = columnBoardSize;
+        this.rowBoardSize = rowBoardSize;
+        this.labels = new int[columnBoardSize * rowBoardSize];
+    }
+
+    /**
+     * Flood fills each unlabelled, unburnt square in turn, giving every square it reaches the same label
+     * @param burnt burnt[index] is true if the square with that index is burnt
+     */
+    private void label(boolean[] burnt){
+
+        int numberOfSquares = labels.length;
+        int words = (numberOfSquares + 63) >>> 6;
+
+        // a board can't have more components than squares
+        minX = new int[numberOfSquares];
+        minY = new int[numberOfSquares];
+        maxX = new int[numberOfSquares];
+        maxY = new int[numberOfSquares];
+        sizes = new int[numberOfSquares];
+        masks = new long[numberOfSquares][];
+
+        Arrays.fill(labels, -1);
+
+        int[] stack = new int[numberOfSquares];
+
+        for(int x = 0; x < columnBoardSize; x++){
+            for(int y = 0; y < rowBoardSize; y++){
+
+                int start = y * columnBoardSize + x;
+
+                // find a square that hasn't been visited yet, and isn't burnt
+                if(labels[start] != -1 || burnt[start]){
+                    continue;
+                }
+
+                int component = numberOfComponents;
+                numberOfComponents++;
+
+                minX[component] = x;
+                maxX[component] = x;
+                minY[component] = y;
+                maxY[component] = y;
+                masks[component] = new long[words];
+
+                labels[start] = component;
+                stack[0] = start;
+                int stackSize = 1;
+
+                while(stackSize > 0){
+
+                    stackSize--;
+                    int index = stack[stackSize];
+                    int squareX = index % columnBoardSize;
+                    int squareY = index / columnBoardSize;
+
+                    masks[component][index >>> 6] |= 1L << index;
+                    sizes[component]++;
+
+                    minX[component] = Math.min(minX[component], squareX);
+                    maxX[component] = Math.max(maxX[component], squareX);
+                    minY[component] = Math.min(minY[component], squareY);
+                    maxY[component] = Math.max(maxY[component], squareY);
+
+                    // adding each unvisited, unburnt neighbour, diagonals also count
+                    for(int neighbourX = squareX - 1; neighbourX <= squareX + 1; neighbourX++){
+                        for(int neighbourY = squareY - 1; neighbourY <= squareY + 1; neighbourY++){
+
+                            if(neighbourX < 0 || neighbourX >= columnBoardSize
+                                    || neighbourY < 0 || neighbourY >= rowBoardSize){
+                                continue;
+                            }
+
+                            int neighbour = neighbourY * columnBoardSize + neighbourX;
+
+                            if(labels[neighbour] == -1 && !burnt[neighbour]){
+
+                                // labelled when pushed, so each square is only pushed once
+                                labels[neighbour] = component;
+                                stack[stackSize] = neighbour;
+                                stackSize++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public int getNumberOfComponents(){
+        return this.numberOfComponents;
+    }
+
+    /**
+     * Gets the component that a square belongs to
+     * @param index index of the square
+     * @return component number, or -1 if the square is burnt
+     */
+    public int getLabel(int index){
+        return labels[index];
+    }
+
+    /**
+     * Gets the component that the square at a particular x & y co-ordinate belongs to
+     * @param x square x co-ordinate
+     * @param y square y co-ordinate
+     * @return component number, or -1 if the square is burnt
+     */
+    public int getLabel(int x, int y){
+        return labels[y * columnBoardSize + x];
+    }
+
+    /**
+     * Gets the squares in a component, as a bit mask with bit i set if square i
+     * is in the component, split into longs of 64 squares each
+     * @param component component number
+     * @return bit mask of the component's squares
+     */
+    public long[] getMask(int component){
+        return masks[component];
+    }
+
+    public int getSize(int component){
+        return sizes[component];
+    }
+
+    public int getMinX(int component){
+        return minX[component];
+    }
+
+    public int getMinY(int component){
+        return minY[component];
+    }
+
+    public int getMaxX(int component){
+        return maxX[component];
+    }
+
+    public int getMaxY(int component){
+        return maxY[component];
+    }
+}
@@ -7,7 +7,7 @@ import java.sql.*;
 /**
  * File input/output for both saved games in
  * GameFile objects, as well as the Endgame Database,
- * a mapping of boards hashcodes to evaluated GameValue objects.
+ * a mapping of boards smallest zobrist keys to evaluated GameValue objects.
  */
 public class FileInputOutput {
 
@@ -24,7 +24,7 @@ public class FileInputOutput {
             Connection connection = DriverManager.getConnection(databaseURL, "connorMacfarlane", "password");
 
             String createTable = "CREATE TABLE " + tableName + " (" +
-                    "key INT," +
+                    "key BIGINT," +
                     "value MEDIUMBLOB," +
                     "PRIMARY KEY (key)" +
                     ");";
@@ -47,7 +47,7 @@ public class FileInputOutput {
      * @param key key to check database for
      * @return Either GameValue associated with key, or null
      */
-    public GameValue queryDatabase(int key){
+    public GameValue queryDatabase(long key){
 
         try{
 
@@ -93,15 +93,41 @@ public class FileInputOutput {
         return null;
     }
 
+    /**
+     * Checks that the endgame database exists, and has its table, without creating it,
+     * so callers that can do without it don't print an error for each query
+     * @return true if the endgame database can be queried
+     */
+    public boolean isEndgameDatabaseAvailable(){
+
+        try{
+
+            Connection connection = DriverManager.getConnection(databaseURL + ";IFEXISTS=TRUE", "connorMacfarlane", "password");
+
+            ResultSet resultSet = connection.getMetaData().getTables(null, null, tableName.toUpperCase(), null);
+            boolean available = resultSet.next();
+
+            resultSet.close();
+            connection.close();
+
+            return available;
+
+        } catch (Exception e ){
+
+            // the database doesn't exist
+            return false;
+        }
+    }
+
     /**
      * Adds the a key and value pair to the endgame database. Doesn't handle
      * duplicates, so this must only be called after checking that the key doesn't
      * already exist in the database, using the query method.
-     * @param key Key to add to the database, boards hashcode value
+     * @param key Key to add to the database, boards smallest zobrist key
      * @param value Value to add to the database, GameValue for the board
      * @return
      */
-    public void addGameValueToDatabase(int key, GameValue value){
+    public void addGameValueToDatabase(long key, GameValue value){
 
         try{
 
@@ -117,7 +143,7 @@ public class FileInputOutput {
             PreparedStatement preparedStatement = connection.prepareStatement(
                     "INSERT INTO " + tableName + " (key, value) VALUES (?, ?)");
 
-            preparedStatement.setInt(1, key);
+            preparedStatement.setLong(1, key);
 
             preparedStatement.setBinaryStream(2, bais, gameValueAsBytes.length);
             preparedStatement.executeUpdate();
@@ -29,15 +29,31 @@ public class GameEngine {
 
         }
 
+        boolean[] puct = io.getSearchExtension(AITypes, "PUCT move priors");
+        boolean[] solver = io.getSearchExtension(AITypes, "the MCTS-Solver");
+
         if(noOfHumanPlayers == 0){
 
-            players.add(new AIPlayer(true, AITypes.get(0)));
-            players.add(new AIPlayer(false, AITypes.get(1)));
+            AIPlayer whitePlayer = new AIPlayer(true, AITypes.get(0));
+            whitePlayer.setPuct(puct[0]);
+            whitePlayer.setSolver(solver[0]);
+            players.add(whitePlayer);
+
+            AIPlayer blackPlayer = new AIPlayer(false, AITypes.get(1));
+            blackPlayer.setPuct(puct[1]);
+            blackPlayer.setSolver(solver[1]);
+            players.add(blackPlayer);
 
         } else if(noOfHumanPlayers == 1){
 
             players.add(new HumanPlayer(true));
-            players.add(new AIPlayer(false, AITypes.get(0)));
+
+            // the AI searches while the human thinks about their move
+            AIPlayer computerPlayer = new AIPlayer(false, AITypes.get(0));
+            computerPlayer.setPondering(true);
+            computerPlayer.setPuct(puct[0]);
+            computerPlayer.setSolver(solver[0]);
+            players.add(computerPlayer);
 
         } else {
 
@@ -412,9 +428,11 @@ public class GameEngine {
      * @param noOfSimulations The number of games that will be simulated
      * @param AIType1 The first AI strategy used
      * @param AIType2 The second AI strategy used
+     * @param puct whether each AI uses PUCT move priors in its monte-carlo tree search
+     * @param solver whether each AI uses the MCTS-Solver in its monte-carlo tree search
      * @return The number of times the first AI strategy wins
      */
-    public int simulateGames(int noOfSimulations, String AIType1, String AIType2){
+    public int simulateGames(int noOfSimulations, String AIType1, String AIType2, boolean[] puct, boolean[] solver){
 
         int AIType1Wins = 0;
 
@@ -422,6 +440,9 @@ public class GameEngine {
 
             Board board = new Board(6, 6);
 
+            // each game draws from its own stream, so any one of them can be replayed from the seed
+            RandomSource.newGame();
+
             AIPlayer p1, p2;
 
             // for the first half of simulations, give player 1 white, then swap
@@ -440,6 +461,10 @@ public class GameEngine {
             // Giving both AI players their correct types
             p1.AIType = AIType1;
             p2.AIType = AIType2;
+            p1.setPuct(puct[0]);
+            p2.setPuct(puct[1]);
+            p1.setSolver(solver[0]);
+            p2.setSolver(solver[1]);
 
             board.resetBoard(p1, p2);
             AIPlayer currentPlayer = p1;
@@ -476,6 +501,107 @@ public class GameEngine {
         return AIType1Wins;
     }
 
+    /**
+     * Plays monte-carlo tree search with RAVE against plain monte-carlo tree search, with the same time
+     * for each move, and neither using PUCT or the MCTS-Solver, so only RAVE differs between them.
+     * The RAVE player is white, and moves first, in every other game.
+     * @param noOfGames number of games to play
+     * @param boardSize width and height of the board, 6 or 10
+     * @param moveTime milliseconds each player searches for, for each move
+     * @return The number of games RAVE wins
+     */
+    public int raveExperiment(int noOfGames, int boardSize, long moveTime){
+
+        int raveWins = 0;
+
+        for(int i = 0; i < noOfGames; i++){
+
+            Board board = new Board(boardSize, boardSize);
+
+            RandomSource.newGame();
+
+            AIPlayer rave = new AIPlayer(i % 2 == 0, "rave");
+            AIPlayer mcts = new AIPlayer(i % 2 != 0, "mcts");
+
+            for(AIPlayer player: new AIPlayer[]{rave, mcts}){
+
+                player.setPuct(false);
+                player.setSolver(false);
+                player.setSearchLimits(new SearchLimits(moveTime));
+            }
+
+            board.resetBoard(rave, mcts);
+            Player currentPlayer = chooseFirstPlayer(rave, mcts);
+
+            while(true){
+
+                Move nextMove = currentPlayer.getMove(board);
+
+                // the player to move has lost
+                if(nextMove == null){
+
+                    if(currentPlayer == mcts){
+                        raveWins++;
+                    }
+
+                    System.out.println("game " + i + ": " + (currentPlayer == mcts ? "rave" : "mcts") + " won, rave played " + (rave.isWhite() ? "white" : "black"));
+                    break;
+                }
+
+                updateBoard(nextMove, board, false);
+                currentPlayer = currentPlayer == rave ? mcts : rave;
+            }
+        }
+        return raveWins;
+    }
+
+    /**
+     * Measures how many MCTS playouts are simulated per second from the start of a 10x10 game,
+     * for 1, 2, 4, ... threads, up to the number of processors available, both with the
+     * threads sharing one tree and with each thread searching its own tree, as well as
+     * with the same number of playouts simulated in parallel from each leaf
+     * @param moveTime number of seconds to search for, for each number of threads
+     */
+    public void benchmarkMCTS(int moveTime){
+
+        Board board = new Board(10, 10);
+        board.resetBoard(new AIPlayer(true), new AIPlayer(false));
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        for(int noOfThreads = 1; ; noOfThreads *= 2){
+
+            // making sure the number of processors is always included, even if not a power of 2
+            noOfThreads = Math.min(noOfThreads, maxThreads);
+
+            // sharing one tree between the threads
+            MCTS mcts = new MCTS();
+            mcts.setNumberOfThreads(noOfThreads);
+            mcts.getNextMove(board, true, moveTime);
+
+            System.out.println(noOfThreads + " threads, shared tree: " + mcts.getNumberOfPlayouts() / moveTime + " playouts per second");
+
+            // a tree for each thread
+            mcts = new MCTS();
+            mcts.setNumberOfThreads(noOfThreads);
+            mcts.rootParallelisation = true;
+            mcts.getNextMove(board, true, moveTime);
+
+            System.out.println(noOfThreads + " threads, tree per thread: " + mcts.getNumberOfPlayouts() / moveTime + " playouts per second");
+
+            // sharing one tree, with a playout for each thread from every leaf
+            mcts = new MCTS();
+            mcts.setPlayoutsPerLeaf(noOfThreads);
+            mcts.getNextMove(board, true, moveTime);
+
+            System.out.println(noOfThreads + " playouts per leaf: " + mcts.getNumberOfPlayouts() / moveTime + " playouts per second");
+
+            if(noOfThreads == maxThreads){
+                break;
+            }
+        }
+    }
+
 
     public void testClass(Class testClass){
 
@@ -523,12 +649,28 @@ public class GameEngine {
 
             DatabaseFiller databaseFiller = new DatabaseFiller();
 
+            // an optional second argument seeds the AIs and simulations, so a run can be repeated
+            if(Args.length > 1){
+
+                try {
+                    RandomSource.setSeed(Long.parseLong(Args[1]));
+                } catch (NumberFormatException e) {
+
+                    System.out.println("Usage: ./amazons.sh [Option] [Seed], where the seed is a whole number");
+                    return;
+                }
+            }
+
+            System.out.println("Random seed: " + RandomSource.getSeed());
+
             if(Args[0].equals("experiments")){
 
                 ArrayList<String> AITypes = io.getAITypes(2);
+                boolean[] puct = io.getSearchExtension(AITypes, "PUCT move priors");
+                boolean[] solver = io.getSearchExtension(AITypes, "the MCTS-Solver");
                 int noOfSimulations = io.getNoOfSimulations();
 
-                int firstPlayerWins = engine.simulateGames(noOfSimulations, AITypes.get(0), AITypes.get(1));
+                int firstPlayerWins = engine.simulateGames(noOfSimulations, AITypes.get(0), AITypes.get(1), puct, solver);
                 System.out.println(AITypes.get(0) + " won " + firstPlayerWins + " games out of " + noOfSimulations + " against " + AITypes.get(1));
 
             } else if(Args[0].equals("unitTests")){
@@ -537,6 +679,7 @@ public class GameEngine {
                 engine.testClass(GameValueTests.class);
                 engine.testClass(DatabaseTests.class);
                 engine.testClass(AITests.class);
+                engine.testClass(BitBoardTests.class);
 
             } else if(Args[0].equals("fillDatabase")){
 
@@ -580,6 +723,16 @@ public class GameEngine {
 
                 ReportExamples reportExamples = new ReportExamples();
                 reportExamples.boardTransformationsExamples();
+
+            } else if(Args[0].equals("benchmarkMCTS")){
+
+                engine.benchmarkMCTS(5);
+
+            } else if(Args[0].equals("raveExperiment")){
+
+                int noOfGames = 20;
+                int raveWins = engine.raveExperiment(noOfGames, 10, 1000);
+                System.out.println("rave won " + raveWins + " games out of " + noOfGames + " against mcts");
             }
         }
     }
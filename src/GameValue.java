@@ -39,27 +39,33 @@ public class GameValue implements Serializable{
 
         for(GameValue leftGameValue: this.left){
 
-            // Creating a new move object, in case the starting square and burned square refer to the same square object
-            // As the offset will be applied twice
-            Move oldMove = leftGameValue.move;
-            Square newBurnedSquare = new Square(oldMove.getBurnedSquare().getX(), oldMove.getBurnedSquare().getY(), null, false);
+            // Creating a new move object, with new squares, in case any squares refer to the same square object,
+            // either within the move or shared with other moves read from the database, as the offset would be applied twice
+            leftGameValue.move = offsetMove(leftGameValue.move, startingSquare);
+        }
 
-            Move newMove = new Move(oldMove.getPlayer(), oldMove.getStartPosition(), oldMove.getEndPosition(), newBurnedSquare);
-            newMove.addOffset(startingSquare);
+        for(GameValue rightGameValue: this.right){
 
-            leftGameValue.move = newMove;
+            rightGameValue.move = offsetMove(rightGameValue.move, startingSquare);
         }
+    }
 
-        for(GameValue rightGameValue: this.right){
+    /**
+     * Creates a copy of a move, with its own square objects, and adds an offset to it
+     * @param oldMove Move to copy
+     * @param startingSquare Square containing the offset to add
+     * @return New Move object, with the offset added
+     */
+    private Move offsetMove(Move oldMove, Square startingSquare){
 
-            Move oldMove = rightGameValue.move;
-            Square newBurnedSquare = new Square(oldMove.getBurnedSquare().getX(), oldMove.getBurnedSquare().getY(), null, false);
+        Square newStartSquare = new Square(oldMove.getStartPosition().getX(), oldMove.getStartPosition().getY(), null, false);
+        Square newEndSquare = new Square(oldMove.getEndPosition().getX(), oldMove.getEndPosition().getY(), null, false);
+        Square newBurnedSquare = new Square(oldMove.getBurnedSquare().getX(), oldMove.getBurnedSquare().getY(), null, false);
 
-            Move newMove = new Move(oldMove.getPlayer(), oldMove.getStartPosition(), oldMove.getEndPosition(), newBurnedSquare);
-            newMove.addOffset(startingSquare);
+        Move newMove = new Move(oldMove.getPlayer(), newStartSquare, newEndSquare, newBurnedSquare);
+        newMove.addOffset(startingSquare);
 
-            rightGameValue.move = newMove;
-        }
+        return newMove;
     }
 
     /**
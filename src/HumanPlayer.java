@@ -1,5 +1,4 @@
 import java.io.Serializable;
-import java.util.ArrayList;
 
 /**
  * Represents a human player, allowing a program user
@@ -23,10 +22,8 @@ public class HumanPlayer extends Player implements Serializable {
     @Override
     public Move getMove(Board board){
 
-        ArrayList<Move> validMoves = getValidMoves(board);
-
         // if no valid moves, don't ask user for move
-        if(validMoves.isEmpty()){
+        if(!board.hasAnyMove(this.isWhite())){
             return null;
         }
 
@@ -339,7 +339,7 @@ public class IO {
 
             AIType = getUserInputString();
 
-            if(AIType.equals("mcts") || AIType.equals("random") ||
+            if(AIType.equals("mcts") || AIType.equals("rave") || AIType.equals("random") ||
                     AIType.equals("heuristic") || AIType.equals("cgt")){
 
                 break;
@@ -366,19 +366,58 @@ public class IO {
         if(noOfAIPlayers > 0){
 
             AITypes.add(getAIType("Please enter an AI type for the first AI player" +
-                    " (\"MCTS\", \"Heuristic\", \"CGT\", or \"Random\")"));
+                    " (\"MCTS\", \"RAVE\", \"Heuristic\", \"CGT\", or \"Random\")"));
 
         }
 
         if(noOfAIPlayers > 1){
 
             AITypes.add(getAIType("Please enter an AI type for the second AI player" +
-                    " (\"MCTS\", \"Heuristic\", \"CGT\", or \"Random\")"));
+                    " (\"MCTS\", \"RAVE\", \"Heuristic\", \"CGT\", or \"Random\")"));
         }
 
         return AITypes;
     }
 
+    /**
+     * Asking the user if each AI player that uses monte-carlo tree search, including
+     * the CGT AI, which falls back on it, should use an optional search extension
+     * @param AITypes types of the AI players
+     * @param extension name of the extension, shown to the user
+     * @return true for each AI player using the extension, false for AI players that don't search
+     */
+    public boolean[] getSearchExtension(ArrayList<String> AITypes, String extension){
+
+        boolean[] useExtension = new boolean[AITypes.size()];
+
+        for(int i = 0; i < AITypes.size(); i++){
+
+            String AIType = AITypes.get(i);
+
+            if(!AIType.equals("mcts") && !AIType.equals("rave") && !AIType.equals("cgt")){
+                continue;
+            }
+
+            while(true){
+
+                System.out.println("Should AI player " + (i + 1) + " (" + AIType + ") use " + extension + "? (\"y\" or \"n\")");
+
+                String answer = getUserInputString();
+
+                if(answer.equals("y") || answer.equals("n")){
+
+                    useExtension[i] = answer.equals("y");
+                    break;
+
+                } else {
+
+                    System.out.println("Error, please enter \"y\" or \"n\"");
+                }
+            }
+        }
+        return useExtension;
+    }
+
     /**
      * Getting the number of simulations to run, from the user
      * @return the number of simulations to run
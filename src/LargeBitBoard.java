@@ -0,0 +1,236 @@
+/**
+ * Bit board for boards with more than 64 squares (e.g. 10x10), where
+ * each plane is stored as an array of longs, 64 squares per long.
+ */
+public class LargeBitBoard extends BitBoard {
+
+    private long[] burnt, white, black; // bit planes, bit i set if square i is burnt / has an amazon
+    private QueenRays queenRays; // squares along each queen direction
+
+    public LargeBitBoard(int columnBoardSize, int rowBoardSize){
+
+        super(columnBoardSize, rowBoardSize);
+
+        int words = (numberOfSquares + 63) >>> 6;
+
+        burnt = new long[words];
+        white = new long[words];
+        black = new long[words];
+        queenRays = QueenRays.getQueenRays(columnBoardSize, rowBoardSize);
+    }
+
+    /**
+     * Constructor used for copying
+     * @param other LargeBitBoard object to copy
+     */
+    private LargeBitBoard(LargeBitBoard other){
+
+        super(other.columnBoardSize, other.rowBoardSize);
+
+        this.zobristKey = other.zobristKey;
+        this.burnt = other.burnt.clone();
+        this.white = other.white.clone();
+        this.black = other.black.clone();
+        this.queenRays = other.queenRays;
+    }
+
+    @Override
+    public boolean isBurnt(int index){
+        return (burnt[index >>> 6] & 1L << index) != 0;
+    }
+
+    @Override
+    public boolean hasPiece(int index, boolean isWhite){
+
+        long[] pieces = isWhite ? white : black;
+        return (pieces[index >>> 6] & 1L << index) != 0;
+    }
+
+    @Override
+    public boolean isSquareEmpty(int index){
+
+        int word = index >>> 6;
+        return ((burnt[word] | white[word] | black[word]) & 1L << index) == 0;
+    }
+
+    @Override
+    protected void setBurnt(int index, boolean isBurnt){
+
+        if(isBurnt){
+            burnt[index >>> 6] |= 1L << index;
+        } else {
+            burnt[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    @Override
+    protected void setPiece(int index, boolean isWhite, boolean hasPiece){
+
+        long[] plane = isWhite ? white : black;
+
+        if(hasPiece){
+            plane[index >>> 6] |= 1L << index;
+        } else {
+            plane[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    @Override
+    public int getPieces(boolean isWhite, int[] pieces){
+
+        long[] plane = isWhite ? white : black;
+        int counter = 0;
+
+        for(int word = 0; word < plane.length; word++){
+
+            long remaining = plane[word];
+
+            // taking the lowest set bit each time, until none are left
+            while(remaining != 0){
+
+                pieces[counter] = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                counter++;
+            }
+        }
+        return counter;
+    }
+
+    @Override
+    public int getNumberOfPieces(boolean isWhite){
+
+        long[] plane = isWhite ? white : black;
+        int pieces = 0;
+
+        for(long word: plane){
+            pieces += Long.bitCount(word);
+        }
+        return pieces;
+    }
+
+    @Override
+    public int getValidSquares(int startIndex, int skipIndex, int[] validSquares){
+
+        int counter = 0;
+
+        for(int direction = 0; direction < QueenRays.NUMBER_OF_DIRECTIONS; direction++){
+
+            // walking along the ray, until we reach a square that isn't empty
+            for(int index: queenRays.getRay(startIndex, direction)){
+
+                if(isSquareEmpty(index) || index == skipIndex){
+                    validSquares[counter] = index;
+                    counter++;
+                } else {
+                    break;
+                }
+            }
+        }
+        return counter;
+    }
+
+    @Override
+    public int countValidSquares(int startIndex, int skipIndex){
+
+        int counter = 0;
+
+        for(int direction = 0; direction < QueenRays.NUMBER_OF_DIRECTIONS; direction++){
+
+            for(int index: queenRays.getRay(startIndex, direction)){
+
+                if(isSquareEmpty(index) || index == skipIndex){
+                    counter++;
+                } else {
+                    break;
+                }
+            }
+        }
+        return counter;
+    }
+
+    @Override
+    public int countMoves(boolean isWhite){
+
+        long[] plane = isWhite ? white : black;
+        int moves = 0;
+
+        for(int word = 0; word < plane.length; word++){
+
+            long remaining = plane[word];
+
+            while(remaining != 0){
+
+                int start = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+
+                for(int direction = 0; direction < QueenRays.NUMBER_OF_DIRECTIONS; direction++){
+
+                    for(int end: queenRays.getRay(start, direction)){
+
+                        if(!isSquareEmpty(end)){
+                            break;
+                        }
+
+                        // each square that can be shot at, from this end square, is a separate move
+                        moves += countValidSquares(end, start);
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    @Override
+    public boolean hasAnyMove(boolean isWhite){
+
+        long[] plane = isWhite ? white : black;
+
+        for(int word = 0; word < plane.length; word++){
+
+            long remaining = plane[word];
+
+            while(remaining != 0){
+
+                int start = (word << 6) + Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+
+                for(int direction = 0; direction < QueenRays.NUMBER_OF_DIRECTIONS; direction++){
+
+                    int[] ray = queenRays.getRay(start, direction);
+
+                    if(ray.length > 0 && isSquareEmpty(ray[0])){
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean allSquaresBurnt(){
+
+        int burntSquares = 0;
+
+        for(long word: burnt){
+            burntSquares += Long.bitCount(word);
+        }
+        return burntSquares == numberOfSquares;
+    }
+
+    @Override
+    public int getNumberOfEmptySquares(){
+
+        int filled = 0;
+
+        for(int word = 0; word < burnt.length; word++){
+            filled += Long.bitCount(burnt[word] | white[word] | black[word]);
+        }
+        return numberOfSquares - filled;
+    }
+
+    @Override
+    protected BitBoard copyBits(){
+        return new LargeBitBoard(this);
+    }
+}
@@ -1,359 +1,1724 @@
 import java.util.ArrayList;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Monte-Carlo Tree Search algorithm implementation
+ * Monte-Carlo Tree Search algorithm implementation.
+ * The tree is stored in a NodePool of a fixed size, and can be searched by several
+ * threads at once, or a tree for each thread. The optional search extensions, such
+ * as RAVE, PUCT and the MCTS-Solver, are turned on by the package-private flags below,
+ * and explained where they are used.
  */
 public class MCTS {
 
+    public static final int DEFAULT_MAX_NODES = 1 << 20; // about 32MB of nodes
+    private static final int TIME_CHECK_INTERVAL = 8; // iterations between each thread reading the clock
+
+    // with progressive widening, a node visited n times may have WIDENING_CONSTANT * (n + 1)^WIDENING_EXPONENT children
+    public static final double WIDENING_CONSTANT = 2;
+    public static final double WIDENING_EXPONENT = 0.5;
+
+    // with RAVE, the number of visits at which a node's own win rate and its all-moves-as-first win rate are trusted equally
+    public static final double RAVE_EQUIVALENCE = 300;
+
+    // with PUCT, a child's value is its win rate + PUCT_CONSTANT * prior * sqrt(parent visits) / (1 + visits),
+    // where the priors are a softmax of -PRIOR_SCALE * the opponent's mobility after each move
+    public static final double PUCT_CONSTANT = 1;
+    public static final double PRIOR_SCALE = 0.3;
+
+    // win probability of a cut off playout = 1 / (1 + e^(-scale * (white score - black score)))
+    public static final double MOBILITY_SCALE = 0.1; // while regions are contested, scores are mostly mobility
+    public static final double TERRITORY_SCALE = 2; // once no regions are contested, territory decides the game
+
+    // with partition search, the most moves tried when counting the moves a player has in a region of their own
+    public static final int SETTLED_REGION_NODES = 10000;
+
     boolean opponent; // stores the colour of the opponent
     boolean heuristicOptimisation;
+    boolean rootParallelisation; // each thread searches its own tree, rather than sharing one
+    boolean progressiveWidening; // limits the number of children by visit count, rather than trying every move
+    boolean transpositions; // shares statistics between nodes for the same position
+    boolean rave; // blends all-moves-as-first statistics into selection
+    boolean regionCutoff; // stops playouts once no region holds amazons of both colours
+    boolean partitionSearch; // only searches moves in regions holding amazons of both colours
+    boolean solver; // marks and propagates proven wins and losses
+    boolean puct; // chooses children by win rate and heuristic move priors, rather than UCB
+
+    private int numberOfThreads = 1; // number of threads searching the tree
+    private int playoutsPerLeaf = 1; // number of playouts simulated from each selected leaf
+    private int maxPlayoutLength = 0; // number of moves a playout is cut off after, 0 plays to the end
+    private int maxNodes = DEFAULT_MAX_NODES; // number of nodes kept, split between the trees if there are several
+    private AtomicLong numberOfPlayouts = new AtomicLong(); // playouts done during the last search
+
+    // with partition search, the number of moves each player has in the regions only they have amazons in
+    private int whiteSpareMoves, blackSpareMoves;
+
+    // last shared tree searched, kept so it can be reused
+    private NodePool lastPool;
+    private BitBoard lastRootBoard;
+    private boolean lastRootPlayer;
+    private int lastWhiteSpareMoves, lastBlackSpareMoves;
+
+    // background search during the opponent's turn, or null if not pondering
+    private Thread ponderThread;
+    private SearchLimits ponderLimits;
+
+    // current search, or the last search if none is running, used by getBestMove()
+    private volatile NodePool[] currentPools;
+    private volatile BitBoard currentRootBoard;
+    private volatile Board currentBoard;
+    private volatile boolean currentPlayer;
+
+    // move samplers for the pool threads simulating the extra playouts, as samplers aren't thread safe
+    private static final ThreadLocal<MoveSampler> poolMoveSamplers = ThreadLocal.withInitial(MoveSampler::new);
+
+    /**
+     * Sets how many threads search the tree at once, 1 runs the search on the calling thread only
+     * @param numberOfThreads number of threads, at least 1
+     */
+    public void setNumberOfThreads(int numberOfThreads){
+
+        this.numberOfThreads = Math.max(numberOfThreads, 1);
+    }
+
+    public int getNumberOfThreads(){
+        return this.numberOfThreads;
+    }
+
+    /**
+     * Sets how many playouts are simulated from each selected leaf. Any playouts after the
+     * first are run in parallel on the common ForkJoinPool, while the searching thread
+     * simulates the first, and all of their results are back-propagated together.
+     * @param playoutsPerLeaf number of playouts, at least 1
+     */
+    public void setPlayoutsPerLeaf(int playoutsPerLeaf){
+
+        this.playoutsPerLeaf = Math.max(playoutsPerLeaf, 1);
+    }
+
+    public int getPlayoutsPerLeaf(){
+        return this.playoutsPerLeaf;
+    }
+
+    /**
+     * Sets how many random moves a playout plays before it is stopped, and the
+     * board is scored by evaluatePlayout() instead of being played to the end
+     * @param maxPlayoutLength number of moves, or 0 to play every playout to the end
+     */
+    public void setMaxPlayoutLength(int maxPlayoutLength){
+
+        this.maxPlayoutLength = Math.max(maxPlayoutLength, 0);
+    }
+
+    public int getMaxPlayoutLength(){
+        return this.maxPlayoutLength;
+    }
+
+    /**
+     * Sets the maximum number of nodes in the search tree. With root parallelisation,
+     * the nodes are split evenly between the trees. A tree is always given room for
+     * twice the root's moves, even if that is more, as the root's moves are added all
+     * at once, and must still fit in the half of the tree kept by NodePool.recycle().
+     * @param maxNodes maximum number of nodes, at least 2
+     */
+    public void setMaxNodes(int maxNodes){
+
+        this.maxNodes = Math.max(maxNodes, 2);
+    }
+
+    public int getMaxNodes(){
+        return this.maxNodes;
+    }
+
+    /**
+     * Gets the number of playouts simulated during the last call to getNextMove(),
+     * across every thread
+     * @return number of playouts
+     */
+    public long getNumberOfPlayouts(){
+        return this.numberOfPlayouts.get();
+    }
+
+    /**
+     * Gets the number of playouts back-propagated through the root of the last search,
+     * including any from earlier searches if the tree was reused
+     * @return number of root visits, 0 if nothing has been searched yet
+     */
+    public int getRootVisitCount(){
+
+        if(lastPool == null){
+            return 0;
+        }
+        return lastPool.getVisitCount(0);
+    }
+
+    /**
+     * Gets the number of nodes in the tree of the last search
+     * @return number of nodes, 0 if nothing has been searched yet
+     */
+    public int getNumberOfNodes(){
+
+        if(lastPool == null){
+            return 0;
+        }
+        return lastPool.getSize();
+    }
+
+    /**
+     * Gets the tree kept from the last search, so its nodes can be checked
+     * @return node pool holding the tree, or null after a root parallel search
+     */
+    NodePool getLastTree(){
+        return this.lastPool;
+    }
+
+    /**
+     * Gets the number of nodes each tree can hold, which is its share of maxNodes,
+     * unless that doesn't leave room for the root's children after recycling
+     * @param rootBoard board at the root
+     * @param nextPlayer next player to play on the board
+     * @param numberOfTrees number of trees the nodes are split between
+     * @return number of nodes for each tree
+     */
+    private int getTreeCapacity(BitBoard rootBoard, boolean nextPlayer, int numberOfTrees){
+
+        int rootMoves = new MoveGenerator().generateMoves(rootBoard, nextPlayer);
+
+        return Math.max(maxNodes / numberOfTrees, 2 * (rootMoves + 1));
+    }
+
+    /**
+     * Finding the node for a board in the tree kept from the last search, which is
+     * normally a grandchild of the last root, after our move and the opponent's reply,
+     * and making it the root of the tree. Boards are matched by zobrist key, along with
+     * the player to move, as the win scores in the tree are all from the point of view
+     * of the root player. If the last search was pondering, for the opponent, the board
+     * is a child of the last root instead, and the win scores are turned round.
+     * @param board current board
+     * @param nextPlayer next player to play
+     * @param capacity number of nodes the tree for the board should hold
+     * @return true if the last tree can be reused, false otherwise
+     */
+    private boolean rerootLastTree(BitBoard board, boolean nextPlayer, int capacity){
+
+        if(lastPool == null || lastPool.getCapacity() != capacity
+                || lastWhiteSpareMoves != whiteSpareMoves || lastBlackSpareMoves != blackSpareMoves
+                || lastRootBoard.getColumnBoardSize() != board.getColumnBoardSize()
+                || lastRootBoard.getRowBoardSize() != board.getRowBoardSize()){
+            return false;
+        }
+
+        // searching again for the same board
+        if(lastRootPlayer == nextPlayer && lastRootBoard.getZobristKey() == board.getZobristKey()){
+            return true;
+        }
+
+        int depth = lastRootPlayer == nextPlayer ? 2 : 1;
+        int match = findDescendant(0, lastRootBoard.copy(), board.getZobristKey(), depth);
+
+        if(match == -1){
+            return false;
+        }
+
+        // the rest of the old tree is thrown away, making room for the new search
+        lastPool.reroot(match);
+
+        if(lastRootPlayer != nextPlayer){
+
+            lastPool.invertWinScores();
+
+            if(lastPool.getTranspositionTable() != null){
+                lastPool.getTranspositionTable().invertWinScores();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finding the node for a board, a given number of moves below a node of the last tree
+     * @param node index of the node to search below
+     * @param nodeBoard board for the node, left unchanged once the method returns
+     * @param key zobrist key of the board to find
+     * @param depth number of moves below the node
+     * @return index of the node for the board, or -1 if it isn't in the tree
+     */
+    private int findDescendant(int node, BitBoard nodeBoard, long key, int depth){
+
+        if(depth == 0){
+            return nodeBoard.getZobristKey() == key ? node : -1;
+        }
+
+        int firstChild = lastPool.getFirstChild(node);
+
+        for(int child = firstChild; child < firstChild + lastPool.getChildCount(node); child++){
+
+            nodeBoard.make(lastPool.getMove(child));
+            int match = findDescendant(child, nodeBoard, key, depth - 1);
+            nodeBoard.unmake();
+
+            if(match != -1){
+                return match;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Starts searching for the opponent on a background thread, from the board after
+     * our move, until stopPondering() is called, or the next search starts. If the
+     * opponent then plays one of the moves searched, the next search carries on from it.
+     * @param board board after our move, which mustn't be changed while pondering
+     * @param nextPlayer opponent, who plays next on the board
+     */
+    public void startPondering(Board board, boolean nextPlayer){
+
+        stopPondering();
+
+        // no limits, so the search only stops when it is told to
+        SearchLimits limits = new SearchLimits();
+
+        ponderLimits = limits;
+
+        // the thread is given its own stream, split from ours, so pondering can be repeated
+        SplittableRandom random = RandomSource.current().split();
+
+        ponderThread = new Thread(() -> {
+
+            RandomSource.setCurrent(random);
+            findNextMove(board, nextPlayer, limits);
+        });
+        ponderThread.setDaemon(true);
+        ponderThread.start();
+    }
+
+    /**
+     * Stops any search started by startPondering(), waiting for it to finish
+     */
+    public void stopPondering(){
+
+        if(ponderThread == null){
+            return;
+        }
+
+        ponderLimits.stop();
+
+        try {
+            ponderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        ponderThread = null;
+        ponderLimits = null;
+    }
+
+    public boolean isPondering(){
+        return this.ponderThread != null;
+    }
+
+    /**
+     * Getting a move choice, using the MCTS algorithm
+     * @param board current state of the board
+     * @param nextPlayer next player to play
+     * @param moveTime amount of time allowed for selecting a move, in seconds
+     * @return selected move
+     */
+    public Move getNextMove(Board board, boolean nextPlayer, int moveTime){
+
+        return getNextMove(board, nextPlayer, new SearchLimits(moveTime * 1000L));
+    }
+
+    /**
+     * Getting a move choice, using the MCTS algorithm, searching until
+     * one of the limits given is reached
+     * @param board current state of the board
+     * @param nextPlayer next player to play
+     * @param limits limits on how long to search for
+     * @return selected move
+     */
+    public Move getNextMove(Board board, boolean nextPlayer, SearchLimits limits){
+
+        // any pondering tree is kept, so it can be reused
+        stopPondering();
+
+        return findNextMove(board, nextPlayer, limits);
+    }
+
+    /**
+     * Searching from a board, on the calling thread and any extra threads,
+     * until one of the limits given is reached
+     * @param board current state of the board
+     * @param nextPlayer next player to play
+     * @param limits limits on how long to search for
+     * @return selected move
+     */
+    private Move findNextMove(Board board, boolean nextPlayer, SearchLimits limits){
+
+        whiteSpareMoves = 0;
+        blackSpareMoves = 0;
+
+        // with partition search, the settled regions are taken off the board that is searched
+        BitBoard rootBoard = partitionSearch ? removeSettledRegions(board, BitBoard.fromBoard(board), nextPlayer)
+                : BitBoard.fromBoard(board);
+
+        // one tree shared by every thread, or a tree for each thread
+        NodePool[] pools = new NodePool[rootParallelisation ? numberOfThreads : 1];
+        int capacity = getTreeCapacity(rootBoard, nextPlayer, pools.length);
+
+        if(pools.length == 1){
+
+            // carrying on from the last search's tree, if it reached this board
+            if(!rerootLastTree(rootBoard, nextPlayer, capacity)){
+                lastPool = new NodePool(capacity);
+            }
+
+            pools[0] = lastPool;
+            lastRootBoard = rootBoard;
+            lastRootPlayer = nextPlayer;
+            lastWhiteSpareMoves = whiteSpareMoves;
+            lastBlackSpareMoves = blackSpareMoves;
+
+        } else {
+
+            for(int i = 0; i < pools.length; i++){
+                pools[i] = new NodePool(capacity);
+            }
+
+            // the trees of a root parallel search are combined, so aren't kept
+            lastPool = null;
+            lastRootBoard = null;
+        }
+
+        // each tree has its own table, the same size as the tree, which is kept along with a reused tree
+        for(NodePool pool: pools){
+
+            if(!transpositions){
+                pool.setTranspositionTable(null);
+            } else if(pool.getTranspositionTable() == null){
+                pool.setTranspositionTable(new TranspositionTable(pool.getCapacity()));
+            }
+
+            if(rave){
+                pool.enableAmafStatistics();
+            }
+
+            if(puct){
+                pool.enablePriors();
+            }
+        }
+
+        heuristicOptimisation = false;
+
+        // storing the opponents colour
+        opponent = !nextPlayer;
+
+        numberOfPlayouts.set(0);
+
+        // the current search, for getBestMove(), set with the pools last as they are checked first
+        currentRootBoard = rootBoard;
+        currentBoard = board;
+        currentPlayer = nextPlayer;
+        currentPools = pools;
+
+        // calculating the finishing time, in nanoseconds
+        long startTime = System.nanoTime();
+        long endTime = limits.getMaxTime() == 0 ? Long.MAX_VALUE : startTime + limits.getMaxTime() * 1000000;
+
+        // the calling thread searches as well, alongside any extra threads
+        Thread[] workers = new Thread[numberOfThreads - 1];
+
+        for(int i = 0; i < workers.length; i++){
+
+            NodePool workerPool = pools[(i + 1) % pools.length];
+
+            // streams are split before the threads start, so each thread's stream doesn't depend on scheduling
+            SplittableRandom workerRandom = RandomSource.current().split();
+
+            workers[i] = new Thread(() -> {
+
+                RandomSource.setCurrent(workerRandom);
+                search(workerPool, rootBoard, nextPlayer, limits, endTime);
+            });
+            workers[i].start();
+        }
+
+        search(pools[0], rootBoard, nextPlayer, limits, endTime);
+
+        for(Thread worker: workers){
+
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return getBestMove();
+    }
+
+    /**
+     * Takes the regions that only hold one colour's amazons off a board, by burning their
+     * squares and removing their amazons, and adds up the number of moves each player has
+     * in their own regions, as spare moves. The regions are the connected components used
+     * by Board.split(), and their moves are counted by getSettledRegionMoves(). Moves in the
+     * contested regions are the same on both boards, as the regions don't touch.
+     * @param board current board
+     * @param bitBoard bit board for the current board
+     * @param nextPlayer next player to play
+     * @return bit board with only the contested regions, or the bit board given if
+     * no region is contested, or the next player can't move in any contested region
+     */
+    private BitBoard removeSettledRegions(Board board, BitBoard bitBoard, boolean nextPlayer){
+
+        ConnectedComponents components = new ConnectedComponents(bitBoard);
+        int noOfComponents = components.getNumberOfComponents();
+
+        int[] whitePieces = new int[noOfComponents];
+        int[] blackPieces = new int[noOfComponents];
+        boolean contested = false;
+
+        for(int index = 0; index < bitBoard.getNumberOfSquares(); index++){
+
+            int component = components.getLabel(index);
+
+            if(component == -1){
+                continue;
+            }
+
+            if(bitBoard.hasPiece(index, true)){
+                whitePieces[component]++;
+            } else if(bitBoard.hasPiece(index, false)){
+                blackPieces[component]++;
+            }
+        }
+
+        for(int component = 0; component < noOfComponents; component++){
+            contested |= whitePieces[component] > 0 && blackPieces[component] > 0;
+        }
+
+        if(!contested){
+            return bitBoard;
+        }
+
+        BitBoard contestedBoard = bitBoard.copy();
+        int whiteMoves = 0;
+        int blackMoves = 0;
+
+        for(int component = 0; component < noOfComponents; component++){
+
+            if(whitePieces[component] > 0 && blackPieces[component] > 0){
+                continue;
+            }
+
+            if(whitePieces[component] > 0){
+                whiteMoves += getSettledRegionMoves(board, bitBoard, components, component, true);
+            } else if(blackPieces[component] > 0){
+                blackMoves += getSettledRegionMoves(board, bitBoard, components, component, false);
+            }
+
+            // regions without any amazons are just burnt, as neither player can move in them
+            for(int index = 0; index < contestedBoard.getNumberOfSquares(); index++){
+
+                if(components.getLabel(index) == component){
+
+                    contestedBoard.removePiece(index);
+                    contestedBoard.burnSquare(index);
+                }
+            }
+        }
+
+        // searching the whole board instead, as the next player can only move in their own regions
+        if(!contestedBoard.hasAnyMove(nextPlayer)){
+            return bitBoard;
+        }
+
+        whiteSpareMoves = whiteMoves;
+        blackSpareMoves = blackMoves;
+        return contestedBoard;
+    }
+
+    /**
+     * Gets the number of moves a player has in a region that only they have amazons in, by
+     * searching the region for the longest sequence of moves, with the rest of the board burnt.
+     * If the search tries SETTLED_REGION_NODES moves without finishing, the region is looked up
+     * in the endgame database instead, as long as there is one.
+     * @param board current board
+     * @param bitBoard bit board for the current board
+     * @param components connected components of the board
+     * @param component component number of the region
+     * @param isWhite colour of the amazons in the region, true for white, false for black
+     * @return number of moves, from the endgame database if the search didn't finish and the
+     * region is found, or the most moves found by the search otherwise
+     */
+    static int getSettledRegionMoves(Board board, BitBoard bitBoard, ConnectedComponents components, int component,
+                                     boolean isWhite){
+
+        BitBoard regionBoard = bitBoard.copy();
+
+        for(int index = 0; index < regionBoard.getNumberOfSquares(); index++){
+
+            if(components.getLabel(index) != component){
+
+                regionBoard.removePiece(index);
+                regionBoard.burnSquare(index);
+            }
+        }
+
+        // each move burns a square, so there can't be more moves than empty squares
+        int maxMoves = regionBoard.getNumberOfEmptySquares();
+        int[] nodesLeft = {SETTLED_REGION_NODES};
+        int moves = getLongestMoveSequence(regionBoard, isWhite, new MoveGenerator(), maxMoves, nodesLeft);
+
+        if(moves < maxMoves && nodesLeft[0] <= 0 && new FileInputOutput().isEndgameDatabaseAvailable()){
+
+            Board partition = board.newBoard(components.getMinX(component), components.getMinY(component),
+                    components.getMaxX(component), components.getMaxY(component), component);
+
+            GameValue gameValue = partition.getFromDatabase();
+
+            // white is right, and black is left, as in getCGTMove()
+            if(gameValue != null){
+                return gameValue.maxDepth(isWhite ? "right" : "left", gameValue);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Searching depth first for the longest sequence of moves one player can make, with the
+     * other player passing, stopping early once a sequence of maxMoves moves is found
+     * @param board board to search, which is left as it was
+     * @param isWhite colour of the player, true for white, false for black
+     * @param moveGenerator move generator, which is reused at every depth
+     * @param maxMoves most moves the player could make from the board
+     * @param nodesLeft number of moves left to try, shared by the whole search
+     * @return number of moves in the longest sequence found
+     */
+    private static int getLongestMoveSequence(BitBoard board, boolean isWhite, MoveGenerator moveGenerator,
+                                              int maxMoves, int[] nodesLeft){
+
+        if(maxMoves == 0){
+            return 0;
+        }
+
+        // the generator's moves are replaced at the next depth
+        int noOfMoves = moveGenerator.generateMoves(board, isWhite);
+        int[] moves = Arrays.copyOf(moveGenerator.getMoves(), noOfMoves);
+        int longest = 0;
+
+        for(int i = 0; i < noOfMoves && longest < maxMoves && nodesLeft[0] > 0; i++){
+
+            nodesLeft[0]--;
+            board.make(moves[i]);
+            longest = Math.max(longest, 1 + getLongestMoveSequence(board, isWhite, moveGenerator, maxMoves - 1, nodesLeft));
+            board.unmake();
+        }
+        return longest;
+    }
+
+    /**
+     * Gets the best move found so far by the current search, or the last search if
+     * none is running. Can be called from any thread, at any time during a search.
+     * @return move with the most simulation wins, or null if no moves have been searched yet
+     */
+    public Move getBestMove(){
+
+        NodePool[] pools = currentPools;
+
+        if(pools == null){
+            return null;
+        }
+
+        int winnerMove;
+
+        // recycling can't move the root's children while they are being read
+        for(NodePool pool: pools){
+            pool.lock.readLock().lock();
+        }
+
+        try {
+
+            if(pools.length == 1){
+                winnerMove = pools[0].getChildCount(0) == 0 ? -1
+                        : pools[0].getMove(getChildWithMaxScore(pools[0], 0, currentRootBoard));
+            } else {
+                winnerMove = getMergedMoveWithMaxScore(pools, currentRootBoard);
+            }
+
+        } finally {
+
+            for(NodePool pool: pools){
+                pool.lock.readLock().unlock();
+            }
+        }
+
+        if(winnerMove == -1){
+            return null;
+        }
+
+        // only the chosen move is turned into a Move object, using the original board's squares
+        return MoveGenerator.toMove(winnerMove, currentBoard, new AIPlayer(currentPlayer));
+    }
+
+    /**
+     * Combining the win scores of the root children of several independent trees,
+     * by move, and getting the move with the highest combined score, as
+     * getChildWithMaxScore() does for a single tree. A move proven to win in any
+     * tree is chosen straight away, and a move proven to lose in any tree is only
+     * chosen if every move is a proven loss. Visit counts aren't merged, as the
+     * move is chosen by its win score alone.
+     * @param pools node pools holding the trees, all for the same board
+     * @param rootBoard board at the root of the trees
+     * @return packed move with the most combined simulation wins
+     */
+    int getMergedMoveWithMaxScore(NodePool[] pools, BitBoard rootBoard){
+
+        // move -> win score, kept in the order the moves were generated
+        LinkedHashMap<Integer, Double> mergedScores = new LinkedHashMap<>();
+        HashSet<Integer> lostMoves = new HashSet<>();
+
+        for(NodePool pool: pools){
+
+            int firstChild = pool.getFirstChild(0);
+
+            for(int child = firstChild; child < firstChild + pool.getChildCount(0); child++){
+
+                // a move proven to win in any of the trees wins
+                if(pool.getProof(child) == NodePool.PROVEN_WIN){
+                    return pool.getMove(child);
+                }
+
+                if(pool.getProof(child) == NodePool.PROVEN_LOSS){
+                    lostMoves.add(pool.getMove(child));
+                }
+
+                long key = getChildKey(rootBoard, pool.getMove(child));
+                mergedScores.merge(pool.getMove(child), getWinScore(pool, child, key), Double::sum);
+            }
+        }
+
+        int maxMove = -1;
+        double maxScore = -1;
+
+        for(Map.Entry<Integer, Double> entry: mergedScores.entrySet()){
+
+            // every move scores at least 0, so a lost move is only chosen if nothing else is left
+            double score = lostMoves.contains(entry.getKey()) ? -1 : entry.getValue();
+
+            if(score > maxScore || maxMove == -1){
+
+                maxMove = entry.getKey();
+                maxScore = score;
+            }
+        }
+        return maxMove;
+    }
+
+    /**
+     * Runs the search loop on one thread until one of the limits is reached. Each thread
+     * has its own move generator and sampler, as they aren't thread safe.
+     * @param pool node pool holding the tree, which may be shared with other threads
+     * @param rootBoard board at the root of the tree, which isn't changed
+     * @param nextPlayer root node player
+     * @param limits limits on how long to search for
+     * @param endTime time to stop searching, from System.nanoTime()
+     */
+    private void search(NodePool pool, BitBoard rootBoard, boolean nextPlayer, SearchLimits limits, long endTime){
+
+        MoveGenerator moveGenerator = new MoveGenerator(); // reused for every expansion
+        MoveSampler moveSampler = new MoveSampler(); // reused for every simulated move
+        PlayedMoves playedMoves = rave ? new PlayedMoves() : null; // reused for every iteration
+        int iterations = 0;
+
+        // looping until a limit is reached
+        while(!isSearchFinished(pool, limits, endTime, iterations)){
+
+            iterations++;
+
+            boolean poolFull;
+
+            // nodes can't be moved by recycling while a thread is searching through them
+            pool.lock.readLock().lock();
+
+            try {
+                poolFull = !searchOnce(pool, rootBoard, nextPlayer, moveGenerator, moveSampler, playedMoves);
+            } finally {
+                pool.lock.readLock().unlock();
+            }
+
+            // throwing away the least visited nodes, once every thread has finished its current iteration
+            if(poolFull){
+
+                pool.lock.writeLock().lock();
+
+                try {
+                    pool.recycle();
+                } finally {
+                    pool.lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a search should stop. The clock is only read every few iterations, as
+     * iterations are short, and the other limits are checked every iteration. A search
+     * never stops before the root has been expanded, so there is always a move to choose,
+     * but stops straight away once the root is proven.
+     * @param pool node pool holding the tree
+     * @param limits limits on how long to search for
+     * @param endTime time to stop searching, from System.nanoTime()
+     * @param iterations number of iterations done by the calling thread
+     * @return true if a limit has been reached, false otherwise
+     */
+    private boolean isSearchFinished(NodePool pool, SearchLimits limits, long endTime, int iterations){
+
+        // the root is expanded on its second visit, or already was if the tree was reused
+        if(pool.getVisitCount(0) < 2 && !pool.isExpanded(0)){
+            return false;
+        }
+
+        // the result is already known, so there is nothing left to search
+        if(limits.isStopped() || pool.getProof(0) != NodePool.UNPROVEN){
+            return true;
+        }
+
+        if(limits.getMaxPlayouts() != 0 && numberOfPlayouts.get() >= limits.getMaxPlayouts()){
+            return true;
+        }
+
+        if(limits.getMaxNodes() != 0 && pool.getSize() >= limits.getMaxNodes()){
+            return true;
+        }
+
+        return iterations % TIME_CHECK_INTERVAL == 0 && System.nanoTime() >= endTime;
+    }
 
     /**
-     * Getting a move choice, using the MCTS algorithm
-     * @param board current state of the board
-     * @param nextPlayer next player to play
-     * @param moveTime amount of time allowed for selecting a move
-     * @return selected move
+     * Runs one iteration of the search, selecting a leaf, expanding it, simulating a
+     * game from it, and propagating the result back up the tree
+     * @param pool node pool holding the tree
+     * @param rootBoard board at the root of the tree, which isn't changed
+     * @param nextPlayer root node player
+     * @param moveGenerator move generator belonging to the calling thread
+     * @param moveSampler move sampler belonging to the calling thread
+     * @param playedMoves record of played moves belonging to the calling thread, or null without RAVE
+     * @return false if a node couldn't be expanded as the pool is full, true otherwise
      */
-    public Move getNextMove(Board board, boolean nextPlayer, int moveTime){
+    private boolean searchOnce(NodePool pool, BitBoard rootBoard, boolean nextPlayer,
+                               MoveGenerator moveGenerator, MoveSampler moveSampler, PlayedMoves playedMoves){
 
-        Node root = new Node();
-        root.state.board = board;
-        root.state.nextPlayer = nextPlayer;
+        // the board is rebuilt from the root as the tree is searched, and then used for the simulation
+        BitBoard board = rootBoard.copy();
 
-        heuristicOptimisation = false;
+        // 1. Select "promising" node using UCT
+        int promisingNode = selectPromisingNode(pool, board);
+        boolean currentPlayer = nextPlayer == (getDepth(pool, promisingNode) % 2 == 0);
+        boolean expanded = true;
 
-        // storing the opponents colour
-        opponent = !nextPlayer;
+        // 2. If node not visited before, simulate game, otherwise
+        if (pool.getVisitCount(promisingNode) != 0 && !pool.isExpanded(promisingNode)) {
 
-        // calculating the finishing time
-        long startTime = System.currentTimeMillis();
-        long endTime = startTime + (moveTime * 1000);
+            // 3. expand the tree and simulate a random child node
+            expanded = expandNode(pool, promisingNode, board, currentPlayer, moveGenerator);
 
-        // looping until finishing time
-        while(System.currentTimeMillis() < endTime){
+            // the moves are in a random order, so the first untried move is a random child
+            int child = pool.addChild(promisingNode, getMaxChildren(pool, promisingNode));
 
-            // 1. Select "promising" node using UCT
-            Node promisingNode = selectPromisingNode(root);
-            boolean playoutResult;
+            if(child != -1){
 
-            // 2. If node not visited before, simulate game
-            if (promisingNode.state.visitCount == 0) {
+                promisingNode = child;
+                pool.addVirtualLoss(promisingNode);
 
-                playoutResult = simulateRandomPlayout(promisingNode);
+                board.applyMove(pool.getMove(promisingNode));
+                currentPlayer = !currentPlayer;
+            }
+        }
 
+        // the simulation changes the board, so the key of the node is stored first
+        long key = board.getZobristKey();
 
-            } else {
+        if(playedMoves != null){
+            playedMoves.clear(board.getNumberOfSquares());
+        }
 
-                // 3. otherwise, expand the tree and simulate a random child node
-                expandNode(promisingNode);
+        // a player with no moves at all has lost, which is proven, rather than simulated
+        if(solver && pool.isExpanded(promisingNode) && pool.getMoveCount(promisingNode) == 0
+                && (currentPlayer ? whiteSpareMoves : blackSpareMoves) == 0){
 
-                // if there are children nodes, randomly select one to simulate
-                if(promisingNode.children.size() > 0){
+            pool.setProof(promisingNode, currentPlayer == nextPlayer ? NodePool.PROVEN_LOSS : NodePool.PROVEN_WIN);
+        }
 
-                    Random random = new Random();
-                    int randomIndex = random.nextInt(promisingNode.children.size());
+        double winScore;
 
-                    promisingNode = promisingNode.children.get(randomIndex);
+        // proven nodes aren't simulated, as their result is already known
+        if(pool.getProof(promisingNode) != NodePool.UNPROVEN){
+            winScore = pool.getProof(promisingNode) == NodePool.PROVEN_WIN ? playoutsPerLeaf : 0;
+        } else {
+            winScore = simulateRandomPlayouts(board, currentPlayer, moveSampler, nextPlayer, playedMoves);
+        }
 
-                }
+        // 4. Finally, propagate the result back up the tree
+        backPropogation(pool, promisingNode, board.getZobrist(), key, !currentPlayer, nextPlayer, winScore,
+                playoutsPerLeaf, playedMoves);
+        numberOfPlayouts.addAndGet(playoutsPerLeaf);
 
-                playoutResult = simulateRandomPlayout(promisingNode);
-            }
+        return expanded;
+    }
 
-            // 4. Finally, propagate the result back up the tree
-            backPropogation(promisingNode, playoutResult, nextPlayer);
-        }
+    /**
+     * Gets the number of moves between the root and a node
+     * @param pool node pool holding the tree
+     * @param node index of the node
+     * @return depth of the node, 0 for the root
+     */
+    private int getDepth(NodePool pool, int node){
 
-        Node winnerNode = root.getChildWithMaxScore();
+        int depth = 0;
 
-        return winnerNode.state.move;
+        while(pool.getParent(node) != -1){
+            node = pool.getParent(node);
+            depth++;
+        }
+        return depth;
     }
 
     /**
-     * Step 1- Selecting a promising node
-     * @param rootNode the root node
+     * Step 1- Selecting a promising node, adding a virtual loss
+     * to each node on the way, which is removed during back propagation.
+     * Until then, the nodes look worse to any other threads searching
+     * the tree, so the threads spread out over it.
+     * If a node on the way is allowed another child, its next untried
+     * move is turned into a child, which is selected.
+     * @param pool node pool holding the tree
+     * @param board copy of the root board, which the moves to the node are played on
      * @return a "promising" node
      */
-    private Node selectPromisingNode(Node rootNode){
+    int selectPromisingNode(NodePool pool, BitBoard board){
+
+        int node = 0;
+        boolean rootPlayerToMove = true;
+        pool.addVirtualLoss(node);
+
+        while(pool.isExpanded(node)){
+
+            int child = -1;
+
+            if(puct){
+
+                child = findBestNodeWithPUCT(pool, node, board, rootPlayerToMove);
+
+            } else {
+
+                // untried moves are always tried before any child is visited again, as long as the node is allowed more children
+                if(pool.getChildCount(node) < pool.getMoveCount(node)){
+                    child = pool.addChild(node, getMaxChildren(pool, node));
+                }
+
+                if(child == -1){
+
+                    // a node with no moves is the end of the game
+                    if(pool.getChildCount(node) == 0){
+                        break;
+                    }
+
+                    child = findBestNodeWithUCT(pool, node, board);
+                }
+            }
 
-        Node node = rootNode;
+            // every child is proven, so an untried move is tried, even beyond the widening limit
+            if(child == -1){
+                child = pool.addChild(node, Integer.MAX_VALUE);
+            }
 
-        while(node.children.size() != 0){
+            if(child == -1){
+                break;
+            }
 
-            node = findBestNodeWithUCT(node);
+            node = child;
+            rootPlayerToMove = !rootPlayerToMove;
+            pool.addVirtualLoss(node);
+            board.applyMove(pool.getMove(node));
         }
 
         return node;
     }
 
+    /**
+     * Gets the number of children a node is allowed, which, with progressive
+     * widening, grows with the number of times the node has been visited
+     * @param pool node pool holding the tree
+     * @param node index of the node
+     * @return maximum number of children
+     */
+    private int getMaxChildren(NodePool pool, int node){
+
+        if(!progressiveWidening){
+            return Integer.MAX_VALUE;
+        }
+        return (int) Math.ceil(WIDENING_CONSTANT * Math.pow(pool.getVisitCount(node) + 1, WIDENING_EXPONENT));
+    }
+
+    /**
+     * Gets the zobrist key of the board after a move, without playing it
+     * @param board current board
+     * @param move packed move
+     * @return zobrist key after the move
+     */
+    private static long getChildKey(BitBoard board, int move){
+
+        boolean isWhite = board.hasPiece(MoveGenerator.getStart(move), true);
+
+        return board.getZobristKey() ^ board.getZobrist().getMoveKey(move, isWhite);
+    }
+
+    /**
+     * Gets the visit count of a node, which is shared with every node for the
+     * same position if the position is in the transposition table
+     * @param pool node pool holding the tree
+     * @param node index of the node
+     * @param key zobrist key of the node's board
+     * @return visit count
+     */
+    int getVisitCount(NodePool pool, int node, long key){
+
+        TranspositionTable table = pool.getTranspositionTable();
+        int entry = table == null ? -1 : table.find(key);
+
+        return entry == -1 ? pool.getVisitCount(node) : table.getVisitCount(entry);
+    }
+
+    /**
+     * Gets the win score of a node, which is shared with every node for the
+     * same position if the position is in the transposition table
+     * @param pool node pool holding the tree
+     * @param node index of the node
+     * @param key zobrist key of the node's board
+     * @return win score
+     */
+    private double getWinScore(NodePool pool, int node, long key){
+
+        TranspositionTable table = pool.getTranspositionTable();
+        int entry = table == null ? -1 : table.find(key);
+
+        return entry == -1 ? pool.getWinScore(node) : table.getWinScore(entry);
+    }
+
     /**
      * Finding the best node to visit next, using Upper Confidence
      * Bound formula.
-     * @param node
-     * @return
+     * @param pool node pool holding the tree
+     * @param node index of the parent node
+     * @param board board for the parent node
+     * @return index of the child with the highest UCB value, skipping proven
+     * children, or -1 if every child is proven
      */
-    public static Node findBestNodeWithUCT(Node node) {
+    private int findBestNodeWithUCT(NodePool pool, int node, BitBoard board) {
 
-        double max = 0;
-        int bestNodeIndex = 0;
+        int firstChild = pool.getFirstChild(node);
+        int childCount = pool.getChildCount(node);
+        TranspositionTable table = pool.getTranspositionTable();
 
-        for(int i = 0; i < node.children.size(); i++){
+        // the child keys are only needed to look up the children in the transposition table
+        Zobrist zobrist = null;
+        long key = 0;
+        boolean isWhite = false;
+        int parentVisitCount = pool.getVisitCount(node);
 
-            double currentValue = node.children.get(i).getUCB();
+        if(table != null){
+
+            zobrist = board.getZobrist();
+            key = board.getZobristKey();
+            isWhite = board.hasPiece(MoveGenerator.getStart(pool.getMove(firstChild)), true);
+            parentVisitCount = getVisitCount(pool, node, key);
+        }
+
+        double max = -1;
+        int bestNode = -1;
+
+        for(int child = firstChild; child < firstChild + childCount; child++){
+
+            // proven children don't need searching any more
+            if(pool.getProof(child) != NodePool.UNPROVEN){
+                continue;
+            }
+
+            int entry = table == null ? -1 : table.find(key ^ zobrist.getMoveKey(pool.getMove(child), isWhite));
+            double currentValue = entry == -1 ? getUCB(pool, child, parentVisitCount) : getUCB(pool, child, table, entry, parentVisitCount);
+
+            if(currentValue > max){
+
+                max = currentValue;
+                bestNode = child;
+            }
+        }
+        return bestNode;
+    }
+
+    /**
+     * Finding the best node to visit next, using the PUCT formula, where the next
+     * untried move, which has the highest prior of the untried moves, competes with
+     * the children, taking the parent's win rate as its win rate. If it is the best,
+     * it is turned into a child. The priors are for the player to move, so win rates
+     * are turned round to be from their point of view too, where it is the opponent.
+     * @param pool node pool holding the tree
+     * @param node index of the parent node
+     * @param board board for the parent node
+     * @param rootPlayerToMove true if the root player is to move at the node
+     * @return index of the child with the highest PUCT value, skipping proven
+     * children, or -1 if there are no children or untried moves left to choose
+     */
+    int findBestNodeWithPUCT(NodePool pool, int node, BitBoard board, boolean rootPlayerToMove) {
+
+        int firstChild = pool.getFirstChild(node);
+        int childCount = pool.getChildCount(node);
+        TranspositionTable table = pool.getTranspositionTable();
+
+        Zobrist zobrist = null;
+        long key = 0;
+        boolean isWhite = false;
+        int parentVisitCount = pool.getVisitCount(node);
+
+        // untried moves have no statistics, so are taken to be as good as their parent
+        double parentWinRate = parentVisitCount == 0 ? 0.5 : pool.getWinScore(node) / parentVisitCount;
+
+        if(!rootPlayerToMove){
+            parentWinRate = 1 - parentWinRate;
+        }
+
+        if(table != null && childCount > 0){
+
+            zobrist = board.getZobrist();
+            key = board.getZobristKey();
+            isWhite = board.hasPiece(MoveGenerator.getStart(pool.getMove(firstChild)), true);
+            parentVisitCount = getVisitCount(pool, node, key);
+        }
+
+        double exploration = PUCT_CONSTANT * Math.sqrt(parentVisitCount);
+        double max = -1;
+        int bestNode = -1;
+
+        for(int child = firstChild; child < firstChild + childCount; child++){
+
+            if(pool.getProof(child) != NodePool.UNPROVEN){
+                continue;
+            }
+
+            int entry = table == null ? -1 : table.find(key ^ zobrist.getMoveKey(pool.getMove(child), isWhite));
+            double winScore = entry == -1 ? pool.getWinScore(child) : table.getWinScore(entry);
+
+            double realVisitCount = entry == -1 ? pool.getVisitCount(child) : table.getVisitCount(entry);
+            double visitCount = realVisitCount + pool.getVirtualLoss(child);
+            double winRate = parentWinRate;
+
+            if(visitCount > 0){
+
+                winRate = realVisitCount == 0 ? 0 : getWinRate(pool, child, winScore, realVisitCount);
+
+                if(!rootPlayerToMove && realVisitCount > 0){
+                    winRate = 1 - winRate;
+                }
+
+                // virtual losses count as visits the player to move didn't win, as with UCB
+                winRate *= realVisitCount / visitCount;
+            }
+
+            double currentValue = winRate + exploration * pool.getPrior(child) / (1 + visitCount);
 
             if(currentValue > max){
 
                 max = currentValue;
-                bestNodeIndex = i;
+                bestNode = child;
+            }
+        }
+
+        // the untried moves are sorted by prior, so only the next one needs checking
+        if(childCount < pool.getMoveCount(node) && childCount < getMaxChildren(pool, node)){
+
+            double untriedValue = parentWinRate + exploration * pool.getPrior(firstChild + childCount);
+
+            if(untriedValue > max || bestNode == -1){
+
+                // another thread may have taken the move, in which case this one takes the next
+                int child = pool.addChild(node, getMaxChildren(pool, node));
+
+                if(child != -1){
+                    bestNode = child;
+                }
+            }
+        }
+        return bestNode;
+    }
+
+    /**
+     * Getting the UCB value of a node
+     * @param pool node pool holding the tree
+     * @param node index of the node
+     * @param parentVisitCount visit count of the node's parent
+     * @return UCB value for the node
+     */
+    private double getUCB(NodePool pool, int node, int parentVisitCount) {
+
+        // don't ever want to divide by 0, so this is added
+        pool.setWinScoreIfZero(node, 1);
+
+        // virtual losses count as visits that weren't won, so nodes other threads are searching look worse
+        double visitCount = pool.getVisitCount(node) + pool.getVirtualLoss(node);
+
+        return getWinRate(pool, node, pool.getWinScore(node), visitCount)
+                + 0.8 * Math.sqrt(Math.log(parentVisitCount) / visitCount);
+    }
+
+    /**
+     * Getting the UCB value of a node, using the statistics of
+     * its position in the transposition table
+     * @param pool node pool holding the tree
+     * @param node index of the node
+     * @param table transposition table
+     * @param entry index of the node's entry in the table
+     * @param parentVisitCount visit count of the node's parent
+     * @return UCB value for the node
+     */
+    private double getUCB(NodePool pool, int node, TranspositionTable table, int entry, int parentVisitCount) {
+
+        // don't ever want to divide by 0, so this is added
+        table.setWinScoreIfZero(entry, 1);
+
+        // virtual losses are still counted by node, as they only last for one iteration
+        double visitCount = table.getVisitCount(entry) + pool.getVirtualLoss(node);
+
+        return getWinRate(pool, node, table.getWinScore(entry), visitCount)
+                + 0.8 * Math.sqrt(Math.log(parentVisitCount) / visitCount);
+    }
+
+    /**
+     * Getting the win rate of a node used by the UCB formula, which, with RAVE, is
+     * blended with the node's all-moves-as-first win rate. The weight of the
+     * all-moves-as-first win rate, beta = sqrt(k / (3n + k)), starts at 1 and falls
+     * as the node's visit count, n, grows, where k is RAVE_EQUIVALENCE.
+     * @param pool node pool holding the tree
+     * @param node index of the node
+     * @param winScore win score of the node
+     * @param visitCount visit count of the node
+     * @return win rate of the node
+     */
+    double getWinRate(NodePool pool, int node, double winScore, double visitCount){
+
+        double winRate = winScore / visitCount;
+
+        if(!rave || visitCount == 0 || !pool.hasAmafStatistics()){
+            return winRate;
+        }
+
+        int amafVisitCount = pool.getAmafVisitCount(node);
+
+        if(amafVisitCount == 0){
+            return winRate;
+        }
+
+        double beta = Math.sqrt(RAVE_EQUIVALENCE / (3 * visitCount + RAVE_EQUIVALENCE));
+
+        return (1 - beta) * winRate + beta * pool.getAmafWinScore(node) / amafVisitCount;
+    }
+
+    /**
+     * Getting the child of a node with the most number
+     * of simulation wins associated with it. A proven win is
+     * always chosen, and a proven loss only if every child is one.
+     * @param pool node pool holding the tree
+     * @param node index of the parent node, with the root player to move
+     * @param board board for the parent node
+     * @return index of the child node with the most wins
+     */
+    private int getChildWithMaxScore(NodePool pool, int node, BitBoard board){
+
+        int firstChild = pool.getFirstChild(node);
+        int maxChild = firstChild;
+        double maxScore = -1;
+
+        for(int child = firstChild; child < firstChild + pool.getChildCount(node); child++){
+
+            if(pool.getProof(child) == NodePool.PROVEN_WIN){
+                return child;
+            }
+
+            double score = getWinScore(pool, child, getChildKey(board, pool.getMove(child)));
+
+            if(pool.getProof(child) == NodePool.PROVEN_LOSS){
+                score = -1;
+            }
+
+            if(score > maxScore) {
+
+                maxChild = child;
+                maxScore = score;
             }
         }
-        return node.children.get(bestNodeIndex);
+        return maxChild;
     }
 
     /**
-     * Step 2- Expanding out a non-leaf node, by adding
-     * each of its children nodes to the tree.
+     * Step 2- Expanding out a leaf node, by adding each of its
+     * moves to the tree, in a random order, as untried moves. With PUCT,
+     * the moves are given priors, and sorted by them instead. The moves
+     * are only added once they have all been stored, so other threads
+     * never see a partly expanded node.
+     * @param pool node pool holding the tree
      * @param node non-leaf node to expand
+     * @param board board for the node
+     * @param nextPlayer next player to play on the board
+     * @param moveGenerator move generator belonging to the calling thread
+     * @return false if the node couldn't be expanded as the pool is full, true otherwise
+     */
+    private boolean expandNode(NodePool pool, int node, BitBoard board, boolean nextPlayer, MoveGenerator moveGenerator) {
+
+        // another thread may have expanded the node, or be expanding it
+        if(!pool.startExpansion(node)){
+            return true;
+        }
+
+        int noOfMoves = moveGenerator.generateMoves(board, nextPlayer);
+        int[] moves = moveGenerator.getMoves();
+
+        // shuffling the moves, so the untried moves are tried in a random order
+        SplittableRandom random = RandomSource.current();
+
+        for(int i = noOfMoves - 1; i > 0; i--){
+
+            int j = random.nextInt(i + 1);
+            int move = moves[i];
+            moves[i] = moves[j];
+            moves[j] = move;
+        }
+
+        if(puct){
+            return pool.finishExpansion(node, moves, getMovePriors(board, nextPlayer, moves, noOfMoves), noOfMoves);
+        }
+        return pool.finishExpansion(node, moves, noOfMoves);
+    }
+
+    /**
+     * Works out the prior of each move, from the number of squares the opponent's amazons
+     * can move to after it, as a cheaper stand in for the number of moves the opponent
+     * has, used by AIPlayer.getHeuristicMove(). The priors are a softmax of the opponent's
+     * mobility, scaled by -PRIOR_SCALE, and the moves are sorted so the highest priors
+     * come first, keeping the random order of moves with the same prior.
+     * @param board board for the node, left unchanged once the method returns
+     * @param nextPlayer next player to play on the board
+     * @param moves array of packed moves, which is sorted
+     * @param noOfMoves number of moves in the array
+     * @return prior of each move, in the sorted order, adding up to 1
      */
-    private void expandNode(Node node) {
+    static float[] getMovePriors(BitBoard board, boolean nextPlayer, int[] moves, int noOfMoves){
+
+        float[] priors = new float[noOfMoves];
+
+        if(noOfMoves == 0){
+            return priors;
+        }
+
+        // mobility in the top half and index in the bottom half, so sorting keeps equal moves in order
+        long[] keys = new long[noOfMoves];
 
-        ArrayList<State> possibleStates = node.state.getAllPossibleStates();
+        for(int i = 0; i < noOfMoves; i++){
 
-        for(State state: possibleStates) {
+            board.make(moves[i]);
+            keys[i] = (long) getMobility(board, !nextPlayer) << 32 | i;
+            board.unmake();
+        }
+
+        Arrays.sort(keys);
+
+        int[] unsortedMoves = Arrays.copyOf(moves, noOfMoves);
+        long minMobility = keys[0] >>> 32;
+        double total = 0;
+
+        for(int i = 0; i < noOfMoves; i++){
 
-            Node newNode = new Node();
-            newNode.state = state;
-            newNode.parent = node;
-            newNode.state.nextPlayer = !node.state.nextPlayer;
-            node.children.add(newNode);
+            moves[i] = unsortedMoves[(int) keys[i]];
+            priors[i] = (float) Math.exp(-PRIOR_SCALE * ((keys[i] >>> 32) - minMobility));
+            total += priors[i];
         }
+
+        for(int i = 0; i < noOfMoves; i++){
+            priors[i] /= total;
+        }
+        return priors;
     }
 
     /**
-     * Step 3- Simulating a game, from the node given, using
-     * random play, before returning the result.
-     * @param node current node
-     * @return winner of the simulation
+     * Step 3- Simulating playoutsPerLeaf games from the board given, the first
+     * on the calling thread and the rest in parallel on the common ForkJoinPool
+     * @param board board to simulate from, which is changed by the first simulation
+     * @param nextPlayer next player to play on the board
+     * @param moveSampler move sampler belonging to the calling thread
+     * @param player root node player
+     * @param playedMoves record that the moves of the first simulation are added to, or null
+     * @return number of the simulations won by the root node player, where
+     * simulations that were cut off count as their probability of a win
      */
-    private boolean simulateRandomPlayout(Node node){
+    private double simulateRandomPlayouts(BitBoard board, boolean nextPlayer, MoveSampler moveSampler, boolean player,
+                                          PlayedMoves playedMoves){
+
+        ArrayList<ForkJoinTask<Double>> playouts = new ArrayList<>();
+        SplittableRandom random = RandomSource.current();
 
-        GameEngine gameEngine = new GameEngine();
+        for(int i = 1; i < playoutsPerLeaf; i++){
 
-        // creating a duplicate Board to be used in the simulation, so that the Node board isn't affected
-        Board nodeBoard = node.state.board;
-        Board simulBoard = nodeBoard.newBoard(0, 0, nodeBoard.getColumnBoardSize() - 1, nodeBoard.getRowBoardSize() - 1, -1);
+            // each playout has its own stream, as whichever pool thread runs it can't be known
+            BitBoard playoutBoard = board.copy();
+            SplittableRandom playoutRandom = random.split();
 
-        // setup of player objects
-        boolean nextPlayer = node.state.nextPlayer;
-        ArrayList<AIPlayer> players = new ArrayList<>();
-        players.add(new AIPlayer(nextPlayer));
-        players.add(new AIPlayer(!nextPlayer));
-        players.get(0).addPieces(simulBoard.getPieces(nextPlayer));
-        players.get(1).addPieces(simulBoard.getPieces(!nextPlayer));
-        AIPlayer currentPlayer = players.get(0);
+            playouts.add(ForkJoinPool.commonPool().submit(() -> simulateRandomPlayout(playoutBoard, nextPlayer, poolMoveSamplers.get(),
+                    playoutRandom, null)));
+        }
 
-        // if game is over, return previous player to move
-        if(players.get(0).getValidMoves(simulBoard).size() == 0){
+        double whiteWins = simulateRandomPlayout(board, nextPlayer, moveSampler, random, playedMoves);
 
-            return !nextPlayer;
+        for(ForkJoinTask<Double> playout: playouts){
+            whiteWins += playout.join();
         }
+        return player ? whiteWins : playoutsPerLeaf - whiteWins;
+    }
+
+    /**
+     * Simulating a game, from the board given, using
+     * random play, before returning the result. The game is played
+     * on a bit board, with packed moves, so no Move or Square objects
+     * are created during the simulation. The game is cut off, and the
+     * board scored by evaluatePlayout(), after maxPlayoutLength moves,
+     * or with regionCutoff, once no region is contested.
+     * @param simulBoard board to simulate the game on, which is changed
+     * @param currentPlayer next player to play on the board
+     * @param moveSampler move sampler belonging to the calling thread
+     * @param random random number generator belonging to the simulation
+     * @param playedMoves record that each move played is added to, for RAVE, or null
+     * @return 1 if white won the simulation, 0 if black won, or the probability
+     * of white winning if the simulation was cut off
+     */
+    private double simulateRandomPlayout(BitBoard simulBoard, boolean currentPlayer, MoveSampler moveSampler,
+                                         SplittableRandom random, PlayedMoves playedMoves){
+
+        RegionIndex regionIndex = regionCutoff ? simulBoard.trackRegions() : null;
+        int noOfMoves = 0;
+        int whiteSpare = whiteSpareMoves;
+        int blackSpare = blackSpareMoves;
 
         // simulate the game, returning winner
         while(true){
 
-            ArrayList<Move> validMoves = currentPlayer.getValidMoves(simulBoard);
+            if((maxPlayoutLength != 0 && noOfMoves >= maxPlayoutLength)
+                    || (regionIndex != null && !regionIndex.hasContestedRegion())){
 
-            if(validMoves.size() == 0){
-
-                // if current player can't move, return other player
-                return !currentPlayer.isWhite();
+                return evaluatePlayout(simulBoard, currentPlayer, whiteSpare - blackSpare);
             }
 
-            Move nextMove;
+            int nextMove;
 
             if(heuristicOptimisation){
 
-                nextMove = currentPlayer.getHeuristicMove(simulBoard);
+                nextMove = new AIPlayer(currentPlayer).getHeuristicMove(simulBoard);
 
             } else {
 
-                nextMove = currentPlayer.getRandomMove(validMoves);
-
-                // random move choice
-                //Random rand = new Random();
-                //nextMove = validMoves.get(rand.nextInt(validMoves.size()));
+                // uniformly random move choice, without generating every move
+                nextMove = moveSampler.sampleMove(simulBoard, currentPlayer, random);
             }
 
+            if(nextMove == -1){
 
+                // with partition search, a player who can't move on the board moves in one of their own regions
+                if(currentPlayer && whiteSpare > 0){
+                    whiteSpare--;
+                } else if(!currentPlayer && blackSpare > 0){
+                    blackSpare--;
+                } else {
 
-            gameEngine.updateBoard(nextMove, simulBoard, false);
+                    // if current player can't move, return other player
+                    return currentPlayer ? 0 : 1;
+                }
+
+                currentPlayer = !currentPlayer;
+                noOfMoves++;
+                continue;
+            }
+
+            simulBoard.applyMove(nextMove);
+            noOfMoves++;
+
+            if(playedMoves != null){
+                playedMoves.add(nextMove, currentPlayer);
+            }
 
             // swap the players
-            if(players.indexOf(currentPlayer) == 0){
-                currentPlayer = players.get(1);
-            } else {
-                currentPlayer = players.get(0);
+            currentPlayer = !currentPlayer;
+        }
+    }
+
+    /**
+     * Scoring a playout that has been cut off, as the probability of white winning.
+     * Each player scores the number of squares their amazons can move to, and, if
+     * regions are being tracked, the empty squares of every region that only they
+     * have amazons in. Once no region is contested, the player to move loses if
+     * they don't have more empty squares than their opponent, as each move fills one,
+     * so the territory difference decides the game, and is scaled more steeply.
+     * @param board board at the end of the playout
+     * @param currentPlayer next player to play on the board
+     * @param spareMoves white's spare moves minus black's, from partition search, counted as territory
+     * @return probability of white winning, between 0 and 1
+     */
+    double evaluatePlayout(BitBoard board, boolean currentPlayer, int spareMoves){
+
+        RegionIndex regionIndex = board.getRegionIndex();
+        double scale = MOBILITY_SCALE;
+        int score = spareMoves;
+
+        if(regionIndex != null && !regionIndex.hasContestedRegion()){
+
+            score += getTerritory(regionIndex, true) - getTerritory(regionIndex, false);
+            scale = TERRITORY_SCALE;
+
+        } else {
+
+            score += getMobility(board, true) - getMobility(board, false);
+
+            if(regionIndex != null){
+                score += getTerritory(regionIndex, true) - getTerritory(regionIndex, false);
             }
         }
 
+        // with equal scores, the player to move runs out of moves first
+        double tempo = currentPlayer ? -0.5 : 0.5;
+
+        return 1 / (1 + Math.exp(-scale * (score + tempo)));
     }
 
     /**
-     * Step 4- Propagating the simulation result back up
-     * the tree, all the way to the root node
-     * @param node simulated node
-     * @param winner winner of the simulation
-     * @param player root node player
+     * Counts the empty squares in the regions that only one colour has amazons in
+     * @param regionIndex regions of the board
+     * @param isWhite colour to count for, true for white, false for black
+     * @return number of empty squares only that colour can reach
      */
-    private void backPropogation(Node node, boolean winner, boolean player){
+    static int getTerritory(RegionIndex regionIndex, boolean isWhite){
 
-        Node tempNode = node;
+        int territory = 0;
 
-        while(tempNode != null){
+        for(int i = 0; i < regionIndex.getNumberOfRegions(); i++){
 
-            tempNode.state.visitCount++;
+            int region = regionIndex.getRegion(i);
+            int pieces = regionIndex.getNumberOfPieces(region, isWhite);
 
-            // if the winner of the simulation is the player we
-            // are finding a move for, add one to the score
-            if(player == winner){
-                tempNode.state.winScore += 1;
+            if(pieces > 0 && regionIndex.getNumberOfPieces(region, !isWhite) == 0){
+                territory += regionIndex.getSize(region) - pieces;
             }
-
-            tempNode = tempNode.parent;
         }
+        return territory;
     }
 
     /**
-     * Represents a node in the tree, storing its associated board state,
-     * as well as references to its parent and any children nodes.
+     * Counts the squares that the amazons of one colour can move to, adding
+     * up each amazon separately, so squares reached by two amazons count twice
+     * @param board current board
+     * @param isWhite colour to count for, true for white, false for black
+     * @return number of squares the amazons can move to
      */
-    private class Node{
+    private static int getMobility(BitBoard board, boolean isWhite){
 
-        State state;
-        Node parent;
-        ArrayList<Node> children;
+        int[] pieces = new int[board.getNumberOfPieces(isWhite)];
+        int noOfPieces = board.getPieces(isWhite, pieces);
+        int mobility = 0;
 
-        public Node(){
-
-            state = new State();
-            parent = null;
-            children = new ArrayList<Node>();
+        for(int i = 0; i < noOfPieces; i++){
+            mobility += board.countValidSquares(pieces[i], -1);
         }
+        return mobility;
+    }
 
-        /**
-         * Getting the child of "this" node with the most number
-         * of simulation wins associated with it
-         * @return child node with the most wins
-         */
-        public Node getChildWithMaxScore(){
+    /**
+     * Step 4- Propagating the simulation results back up
+     * the tree, all the way to the root node, and removing the
+     * virtual losses added during selection. With RAVE, the moves on the
+     * way are added to the moves played, and the all-moves-as-first
+     * statistics of every child of each node on the way are updated.
+     * The moves of the first simulation stand in for those of the rest.
+     * With the solver, once the simulated node is proven, each node on
+     * the way is checked to see if it is now proven as well.
+     * @param pool node pool holding the tree
+     * @param node simulated node
+     * @param zobrist zobrist keys for the board size
+     * @param key zobrist key of the simulated node's board
+     * @param mover colour of the player who made the move to the simulated node
+     * @param player root node player
+     * @param winScore number of the simulations won by the root node player
+     * @param noOfPlayouts number of simulations
+     * @param playedMoves moves played in the first simulation, or null without RAVE
+     */
+    private void backPropogation(NodePool pool, int node, Zobrist zobrist, long key, boolean mover, boolean player,
+                                 double winScore, int noOfPlayouts, PlayedMoves playedMoves){
 
-            int counter = 1;
-            Node maxChild = children.get(0);
+        TranspositionTable table = pool.getTranspositionTable();
+        int tempNode = node;
+        boolean proving = solver && pool.getProof(node) != NodePool.UNPROVEN;
 
-            for(Node child: children){
+        while(tempNode != -1){
 
-                if(child.state.winScore > maxChild.state.winScore) {
+            // add one to the score for each simulation won
+            // by the player we are finding a move for
+            pool.addVisits(tempNode, noOfPlayouts, winScore);
+            pool.removeVirtualLoss(tempNode);
 
-                    maxChild = child;
-                }
+            // a position that has dropped out of the table comes back with the node's statistics
+            if(table != null){
+                table.addVisits(key, noOfPlayouts, winScore, pool.getVisitCount(tempNode), pool.getWinScore(tempNode));
             }
-            return maxChild;
-        }
 
-        /**
-         * Getting how often this node is visited, as a percentage,
-         * compared to its sibling nodes
-         * @return Percentage of how often this node is visited
-         */
-        public double getVisitPercentage(){
+            int parent = pool.getParent(tempNode);
 
-            return (double) this.state.visitCount / this.parent.state.visitCount;
+            if(parent != -1){
 
-        }
+                int move = pool.getMove(tempNode);
 
-        /**
-         * Getting the child node that's visited the most.
-         * Used for testing purposes.
-         * @return Most visited child node
-         */
-        public Node getChildWithMostVisits(){
+                // working out the key of the parent, by undoing the move to this node
+                if(table != null){
+                    key ^= zobrist.getMoveKey(move, mover);
+                }
 
-            Node max = children.get(0);
+                if(playedMoves != null){
 
-            for(Node child: children){
+                    playedMoves.add(move, mover);
+                    updateAmafStatistics(pool, parent, mover, playedMoves, winScore, noOfPlayouts);
+                }
 
-                if(child.getVisitPercentage() > max.getVisitPercentage()){
-                    max = child;
+                // a parent can only become proven if the child below it has just been proven
+                if(proving){
+                    proving = updateProof(pool, parent, mover == player);
                 }
+
+                mover = !mover;
             }
-            return max;
+
+            tempNode = parent;
         }
+    }
 
-        /**
-         * Getting the UCB value of "this" node
-         * @return UCB value for "this" node
-         */
-        public double getUCB() {
+    /**
+     * Checks if a node is proven by its children, which includes its untried moves,
+     * so a node is only proven a loss for the player to move once every move is
+     * @param pool node pool holding the tree
+     * @param node index of the node, which is expanded
+     * @param rootPlayerToMove true if the root player is to move at the node
+     * @return true if the node is proven, false otherwise
+     */
+    private boolean updateProof(NodePool pool, int node, boolean rootPlayerToMove){
+
+        if(pool.getProof(node) != NodePool.UNPROVEN){
+            return true;
+        }
 
-            /*
-            // used to ensure that nodes that haven't been visited yet get priority
-            if (this.state.visitCount == 0) {
-                return Integer.MAX_VALUE;
+        // the result the player to move is after, from the root player's point of view
+        int win = rootPlayerToMove ? NodePool.PROVEN_WIN : NodePool.PROVEN_LOSS;
+        boolean allLost = true;
+        int firstChild = pool.getFirstChild(node);
+
+        for(int child = firstChild; child < firstChild + pool.getMoveCount(node); child++){
+
+            int proof = pool.getProof(child);
+
+            if(proof == win){
+
+                pool.setProof(node, win);
+                return true;
             }
-            */
 
-            // don't ever want to divide by 0, so this is added
-            if(this.state.winScore == 0){
-                this.state.winScore += 1;
+            if(proof == NodePool.UNPROVEN){
+                allLost = false;
             }
+        }
+
+        if(allLost && pool.getMoveCount(node) > 0){
 
-            return ((double) this.state.winScore / (double) this.state.visitCount)
-                    + 0.8 * Math.sqrt(Math.log(this.parent.state.visitCount) / (double) this.state.visitCount);
+            pool.setProof(node, -win);
+            return true;
         }
+        return false;
     }
 
     /**
-     * Represents a board state, containing information
-     * about the current board, the next player to move,
-     * how often it has been visited, how many simulated wins etc.
+     * Adds a playout to the all-moves-as-first statistics of each child of a node
+     * whose move was played, by the player to move at the node, from the node onwards
+     * @param pool node pool holding the tree
+     * @param node index of the parent node
+     * @param mover colour of the player to move at the node
+     * @param playedMoves moves played from the node onwards
+     * @param winScore number of the simulations won by the root node player
+     * @param noOfPlayouts number of simulations
      */
-    private class State {
+    private void updateAmafStatistics(NodePool pool, int node, boolean mover, PlayedMoves playedMoves,
+                                      double winScore, int noOfPlayouts){
 
-        Board board;
-        Move move;
-        boolean nextPlayer;
-        int visitCount;
-        double winScore;
+        int firstChild = pool.getFirstChild(node);
+
+        for(int child = firstChild; child < firstChild + pool.getChildCount(node); child++){
+
+            if(playedMoves.contains(pool.getMove(child), mover)){
+                pool.addAmafVisits(child, noOfPlayouts, winScore);
+            }
+        }
+    }
+
+    /**
+     * The moves played by each colour during one iteration of a RAVE search, from the
+     * simulation and the tree, keyed by the square moved to and the square shot at, so
+     * moves by different amazons to the same squares share their statistics.
+     * Each square pair stores the number of the iteration it was last played in, so the
+     * record is cleared by starting a new iteration, rather than clearing the arrays.
+     * Belongs to one thread, as it isn't thread safe.
+     */
+    private static class PlayedMoves {
+
+        private int[] whiteIterations = new int[0];
+        private int[] blackIterations = new int[0];
+        private int numberOfSquares;
+        private int iteration;
 
         /**
-         * Getting a list of all possible board states, from the current state
-         * @return
+         * Starts a new iteration, with no moves played
+         * @param numberOfSquares number of squares on the board
          */
-        public ArrayList<State> getAllPossibleStates(){
+        void clear(int numberOfSquares){
 
-            ArrayList<State> states = new ArrayList<State>();
+            if(this.numberOfSquares != numberOfSquares || iteration == Integer.MAX_VALUE){
 
-            Player player = new Player(nextPlayer, true);
-            ArrayList<Piece> pieces = board.getPieces(nextPlayer);
-            player.addPieces(pieces);
-
-            ArrayList<Move> validMoves = player.getValidMoves(board);
+                this.numberOfSquares = numberOfSquares;
+                whiteIterations = new int[numberOfSquares * numberOfSquares];
+                blackIterations = new int[numberOfSquares * numberOfSquares];
+                iteration = 0;
+            }
 
-            for(Move move: validMoves){
+            iteration++;
+        }
 
-                Board newBoard = board.playMove(move);
+        private int getIndex(int move){
+            return MoveGenerator.getEnd(move) * numberOfSquares + MoveGenerator.getShot(move);
+        }
 
-                State newState = new State();
-                newState.move = move;
-                newState.board = newBoard;
-                newState.nextPlayer = !nextPlayer;
+        void add(int move, boolean isWhite){
 
-                states.add(newState);
+            if(isWhite){
+                whiteIterations[getIndex(move)] = iteration;
+            } else {
+                blackIterations[getIndex(move)] = iteration;
             }
+        }
 
-            return states;
+        boolean contains(int move, boolean isWhite){
+
+            if(isWhite){
+                return whiteIterations[getIndex(move)] == iteration;
+            }
+            return blackIterations[getIndex(move)] == iteration;
         }
     }
 }
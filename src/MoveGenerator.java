@@ -0,0 +1,147 @@
+import java.util.Arrays;
+
+/**
+ * Generates all the valid moves for one colour on a BitBoard, without creating
+ * any Move or Square objects. Each move is packed into a single int, storing the
+ * index of the starting square, finishing square and square shot at (8 bits each,
+ * so boards can have up to 256 squares), and written into a buffer that is reused
+ * between calls. Move objects are only built, using toMove(), for the move that
+ * is actually going to be played.
+ * A MoveGenerator isn't thread safe, so each thread should use its own.
+ */
+public class MoveGenerator {
+
+    private int[] moves = new int[1024]; // packed moves from the last call to generateMoves()
+    private int[] pieces = new int[0]; // scratch space for the piece squares
+    private int[] endSquares = new int[0]; // scratch space for the squares a piece can move to
+    private int[] shotSquares = new int[0]; // scratch space for the squares that can be shot at
+
+    /**
+     * Packs a move into a single int
+     * @param start index of the square the amazon starts on
+     * @param end index of the square the amazon moves to
+     * @param shot index of the square that is shot at
+     * @return packed move
+     */
+    public static int packMove(int start, int end, int shot){
+        return start | end << 8 | shot << 16;
+    }
+
+    public static int getStart(int move){
+        return move & 0xFF;
+    }
+
+    public static int getEnd(int move){
+        return move >>> 8 & 0xFF;
+    }
+
+    public static int getShot(int move){
+        return move >>> 16 & 0xFF;
+    }
+
+    /**
+     * Makes sure the scratch arrays have room for every square on the given board
+     * @param board board that moves are being generated for
+     */
+    private void ensureCapacity(BitBoard board){
+
+        int squares = board.getNumberOfSquares();
+
+        if(endSquares.length < squares){
+            pieces = new int[squares];
+            endSquares = new int[squares];
+            shotSquares = new int[squares];
+        }
+    }
+
+    /**
+     * Generates all the valid moves for the given colour, storing them in this generators move buffer
+     * @param board board to generate moves on
+     * @param isWhite indicates what colour to generate moves for, true for white, false for black
+     * @return The number of valid moves, which can be read using getMove()
+     */
+    public int generateMoves(BitBoard board, boolean isWhite){
+
+        ensureCapacity(board);
+
+        int noOfMoves = 0;
+        int noOfPieces = board.getPieces(isWhite, pieces);
+
+        // looping through amazon pieces
+        for(int i = 0; i < noOfPieces; i++){
+
+            int start = pieces[i];
+            int noOfEndSquares = board.getValidSquares(start, -1, endSquares);
+
+            // looping through the squares they can move to
+            for(int j = 0; j < noOfEndSquares; j++){
+
+                int end = endSquares[j];
+                int noOfShotSquares = board.getValidSquares(end, start, shotSquares);
+
+                if(noOfMoves + noOfShotSquares > moves.length){
+                    moves = Arrays.copyOf(moves, Math.max(moves.length * 2, noOfMoves + noOfShotSquares));
+                }
+
+                // looping through the squares they can then shoot at
+                for(int k = 0; k < noOfShotSquares; k++){
+
+                    moves[noOfMoves] = packMove(start, end, shotSquares[k]);
+                    noOfMoves++;
+                }
+            }
+        }
+        return noOfMoves;
+    }
+
+    /**
+     * Gets one of the moves from the last call to generateMoves()
+     * @param i position of the move in the buffer
+     * @return packed move
+     */
+    public int getMove(int i){
+        return moves[i];
+    }
+
+    /**
+     * Gets the buffer of moves from the last call to generateMoves(), which is
+     * reused, so is only valid until generateMoves() is called again
+     * @return array of packed moves
+     */
+    public int[] getMoves(){
+        return moves;
+    }
+
+    /**
+     * Builds a Move object for a packed move, using the Square objects of the given board
+     * @param move packed move
+     * @param board Board object that the move will be played on
+     * @param player Player making the move
+     * @return Move object for the packed move
+     */
+    public static Move toMove(int move, Board board, Player player){
+
+        int columns = board.getColumnBoardSize();
+
+        int start = getStart(move);
+        int end = getEnd(move);
+        int shot = getShot(move);
+
+        return new Move(player, board.getSquare(start % columns, start / columns),
+                board.getSquare(end % columns, end / columns),
+                board.getSquare(shot % columns, shot / columns));
+    }
+
+    /**
+     * Packs a Move object, using the square indexes of the given bit board
+     * @param move Move object to pack
+     * @param board bit board that the move will be played on
+     * @return packed move
+     */
+    public static int fromMove(Move move, BitBoard board){
+
+        return packMove(board.getIndex(move.getStartPosition().getX(), move.getStartPosition().getY()),
+                board.getIndex(move.getEndPosition().getX(), move.getEndPosition().getY()),
+                board.getIndex(move.getBurnedSquare().getX(), move.getBurnedSquare().getY()));
+    }
+}
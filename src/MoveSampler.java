@@ -0,0 +1,97 @@
+import java.util.SplittableRandom;
+
+/**
+ * Picks a uniformly random valid move for one colour on a BitBoard, without generating
+ * every move. An amazon and the square it moves to are picked together, using the number
+ * of squares each amazon can reach, and a square to shoot at is then picked out of an upper
+ * limit on the number of squares that can be shot at. If the number picked is beyond the
+ * squares that can actually be shot at, the attempt is rejected and tried again, which makes
+ * every (amazon, finish, shot) move equally likely, even though amazons and finishing squares
+ * have different numbers of shots. After too many rejections, all the moves are generated
+ * with a MoveGenerator instead, so the time taken is always limited.
+ * A MoveSampler isn't thread safe, so each thread should use its own.
+ */
+public class MoveSampler {
+
+    private static final int MAX_ATTEMPTS = 16; // rejections allowed before generating every move
+
+    private MoveGenerator moveGenerator = new MoveGenerator(); // used when too many attempts are rejected
+    private int[] pieces = new int[0]; // scratch space for the piece squares
+    private int[] reachCounts = new int[0]; // number of squares each piece can move to
+    private int[] endSquares = new int[0]; // scratch space for the squares a piece can move to
+    private int[] shotSquares = new int[0]; // scratch space for the squares that can be shot at
+
+    /**
+     * Makes sure the scratch arrays have room for every square on the given board
+     * @param board board that moves are being picked on
+     */
+    private void ensureCapacity(BitBoard board){
+
+        int squares = board.getNumberOfSquares();
+
+        if(endSquares.length < squares){
+            pieces = new int[squares];
+            reachCounts = new int[squares];
+            endSquares = new int[squares];
+            shotSquares = new int[squares];
+        }
+    }
+
+    /**
+     * Picks a uniformly random valid move for the given colour
+     * @param board board to pick a move on
+     * @param isWhite indicates what colour to pick a move for, true for white, false for black
+     * @param random random number generator to use, e.g. RandomSource.current()
+     * @return packed move, or -1 if the colour has no valid moves
+     */
+    public int sampleMove(BitBoard board, boolean isWhite, SplittableRandom random){
+
+        ensureCapacity(board);
+
+        int noOfPieces = board.getPieces(isWhite, pieces);
+        int totalReach = 0;
+
+        for(int i = 0; i < noOfPieces; i++){
+            reachCounts[i] = board.countValidSquares(pieces[i], -1);
+            totalReach += reachCounts[i];
+        }
+
+        // an amazon that can move can always shoot, so no finishing squares means no moves
+        if(totalReach == 0){
+            return -1;
+        }
+
+        // the squares that can be shot at are all empty, apart from the starting square, which the
+        // amazon has left empty in place of its finishing square, so there can't be more than either limit
+        int maxShots = Math.min(QueenRays.getQueenRays(board.getColumnBoardSize(), board.getRowBoardSize()).getMaxReach(),
+                board.getNumberOfEmptySquares());
+
+        for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++){
+
+            // picking an (amazon, finishing square) pair, each pair equally likely
+            int pair = random.nextInt(totalReach);
+            int piece = 0;
+
+            while(pair >= reachCounts[piece]){
+                pair -= reachCounts[piece];
+                piece++;
+            }
+
+            int start = pieces[piece];
+            board.getValidSquares(start, -1, endSquares);
+            int end = endSquares[pair];
+
+            // picking a shot out of the upper limit, only accepted if it is a real shot
+            int noOfShotSquares = board.getValidSquares(end, start, shotSquares);
+            int shot = random.nextInt(maxShots);
+
+            if(shot < noOfShotSquares){
+                return MoveGenerator.packMove(start, end, shotSquares[shot]);
+            }
+        }
+
+        // too many rejections, so picking from every move instead
+        int noOfMoves = moveGenerator.generateMoves(board, isWhite);
+        return moveGenerator.getMove(random.nextInt(noOfMoves));
+    }
+}
@@ -0,0 +1,556 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores the nodes of an MCTS tree in parallel arrays of primitives, rather than as
+ * objects, so each node only takes up a few dozen bytes. Nodes are referred to by their
+ * index in the arrays, and the root is always node 0. A node stores its parent, the move
+ * played to reach it, its visit count, win score and virtual loss, and where its children
+ * are. The children of a node are always stored next to each other, after their parent,
+ * so only the first child and the number of children are needed. Nodes don't store a
+ * board, as the board for a node can be rebuilt by playing the moves from the root.
+ * When a node is expanded, a block is set aside with a slot for every move, but the
+ * moves are only turned into children one at a time, by addChild(), so the search can
+ * decide how many of a node's moves to try. Until then they are untried moves.
+ * The pool holds a fixed number of nodes. Once it is full, recycle() throws away the
+ * children of the least visited nodes, and moves the nodes that are left to the front
+ * of the arrays, so the space can be used again.
+ * Node statistics are atomic, so several threads can search the same pool. Searches hold
+ * the read lock, and recycling holds the write lock, as it moves the nodes around.
+ * A pool can also have a TranspositionTable, holding statistics shared by every node
+ * for the same position, and all-moves-as-first statistics for each node, used by RAVE,
+ * which are only stored once enableAmafStatistics() has been called, and a prior for
+ * each node, the probability of its move being the best, given when its parent is expanded,
+ * which are only stored once enablePriors() has been called.
+ * Nodes whose result is known for certain, as the game is over, or every line from them
+ * is decided, can be marked as proven wins or losses, for MCTS-Solver.
+ */
+public class NodePool {
+
+    private static final int NOT_EXPANDED = -1; // move count of a leaf, whose moves haven't been added yet
+    private static final int EXPANDING = -2; // move count of a node while its moves are being added
+
+    // proven results of nodes, from the point of view of the root player, as win scores are
+    public static final int UNPROVEN = 0;
+    public static final int PROVEN_WIN = 1;
+    public static final int PROVEN_LOSS = -1;
+
+    private int capacity; // maximum number of nodes
+    private AtomicInteger size = new AtomicInteger(); // number of nodes in use, the first size nodes
+
+    private int[] parents; // index of each node's parent, -1 for the root
+    private int[] firstChildren; // index of each node's first child
+    private AtomicIntegerArray moveCounts; // number of moves from each node, set last when expanding
+    private AtomicIntegerArray childCounts; // number of those moves that have been turned into children
+    private int[] moves; // packed move played to reach each node, -1 for the root
+    private AtomicIntegerArray visitCounts;
+    private AtomicIntegerArray virtualLosses; // number of threads currently searching through each node
+    private AtomicLongArray winScores; // bits of a double, as there is no AtomicDoubleArray
+    private AtomicIntegerArray amafVisitCounts; // number of playouts where each node's move was played later on, or null
+    private AtomicLongArray amafWinScores; // win score of those playouts, as bits of a double, or null
+    private AtomicIntegerArray proofs; // proven result of each node, or UNPROVEN
+    private float[] priors; // prior probability of each node's move, set before the move is visible, or null
+
+    private int[] newIndexes; // scratch space used when recycling, the new index of each node, or -1
+    private TranspositionTable transpositionTable; // statistics shared between nodes for the same position, or null
+
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an empty pool, with just a root node
+     * @param capacity maximum number of nodes, at least 1
+     */
+    public NodePool(int capacity){
+
+        this.capacity = Math.max(capacity, 1);
+
+        parents = new int[this.capacity];
+        firstChildren = new int[this.capacity];
+        moveCounts = new AtomicIntegerArray(this.capacity);
+        childCounts = new AtomicIntegerArray(this.capacity);
+        moves = new int[this.capacity];
+        visitCounts = new AtomicIntegerArray(this.capacity);
+        virtualLosses = new AtomicIntegerArray(this.capacity);
+        winScores = new AtomicLongArray(this.capacity);
+        proofs = new AtomicIntegerArray(this.capacity);
+
+        size.set(1);
+        initialiseNode(0, -1, -1);
+    }
+
+    /**
+     * Resets a node, ready to be used as a new leaf
+     * @param node index of the node
+     * @param parent index of its parent
+     * @param move packed move played to reach it
+     */
+    private void initialiseNode(int node, int parent, int move){
+
+        parents[node] = parent;
+        firstChildren[node] = -1;
+        moves[node] = move;
+        moveCounts.set(node, NOT_EXPANDED);
+        childCounts.set(node, 0);
+        visitCounts.set(node, 0);
+        virtualLosses.set(node, 0);
+        winScores.set(node, Double.doubleToLongBits(0));
+        proofs.set(node, UNPROVEN);
+
+        if(amafVisitCounts != null){
+            amafVisitCounts.set(node, 0);
+            amafWinScores.set(node, Double.doubleToLongBits(0));
+        }
+
+        if(priors != null){
+            priors[node] = 0;
+        }
+    }
+
+    /**
+     * Starts storing all-moves-as-first statistics, which start off at 0 for every node
+     * already in the pool. Must be called before the pool is searched by several threads.
+     */
+    public void enableAmafStatistics(){
+
+        if(amafVisitCounts == null){
+            amafVisitCounts = new AtomicIntegerArray(capacity);
+            amafWinScores = new AtomicLongArray(capacity);
+        }
+    }
+
+    public boolean hasAmafStatistics(){
+        return amafVisitCounts != null;
+    }
+
+    /**
+     * Starts storing priors, which start off at 0 for every node already in
+     * the pool. Must be called before the pool is searched by several threads.
+     */
+    public void enablePriors(){
+
+        if(priors == null){
+            priors = new float[capacity];
+        }
+    }
+
+    public boolean hasPriors(){
+        return priors != null;
+    }
+
+    /**
+     * Claims a leaf to add its children to, so only one thread expands each node
+     * @param node index of the node
+     * @return true if the calling thread should add the children, false if the node
+     * is already expanded, or another thread is adding its children
+     */
+    public boolean startExpansion(int node){
+        return moveCounts.compareAndSet(node, NOT_EXPANDED, EXPANDING);
+    }
+
+    /**
+     * Adds the moves of a node claimed by startExpansion(), as untried moves, which
+     * are turned into children in the same order by addChild(). The moves are only
+     * visible to other threads once they have all been added.
+     * @param node index of the node
+     * @param moves array of packed moves
+     * @param noOfMoves number of moves in the array
+     * @return true if the moves were added, false if the pool is full, in which
+     * case the node is left as a leaf
+     */
+    public boolean finishExpansion(int node, int[] moves, int noOfMoves){
+        return finishExpansion(node, moves, null, noOfMoves);
+    }
+
+    /**
+     * Adds the moves of a node claimed by startExpansion(), as untried moves, along
+     * with the prior of each move, which is stored if enablePriors() has been called
+     * @param node index of the node
+     * @param moves array of packed moves
+     * @param movePriors prior of each move, in the same order as the moves, or null
+     * @param noOfMoves number of moves in the array
+     * @return true if the moves were added, false if the pool is full, in which
+     * case the node is left as a leaf
+     */
+    public boolean finishExpansion(int node, int[] moves, float[] movePriors, int noOfMoves){
+
+        int firstChild = allocate(noOfMoves);
+
+        if(firstChild == -1){
+            moveCounts.set(node, NOT_EXPANDED);
+            return false;
+        }
+
+        for(int i = 0; i < noOfMoves; i++){
+
+            initialiseNode(firstChild + i, node, moves[i]);
+
+            if(priors != null && movePriors != null){
+                priors[firstChild + i] = movePriors[i];
+            }
+        }
+
+        firstChildren[node] = firstChild;
+        childCounts.set(node, 0);
+        moveCounts.set(node, noOfMoves);
+        return true;
+    }
+
+    /**
+     * Turns the next untried move of an expanded node into a child, as long as the node
+     * has fewer children than the limit given
+     * @param node index of the node
+     * @param maxChildren maximum number of children the node is allowed
+     * @return index of the new child, or -1 if there are no untried moves, or the node
+     * already has the maximum number of children
+     */
+    public int addChild(int node, int maxChildren){
+
+        int limit = Math.min(moveCounts.get(node), maxChildren);
+
+        while(true){
+
+            int childCount = childCounts.get(node);
+
+            if(childCount >= limit){
+                return -1;
+            }
+
+            // another thread may add a child at the same time, in which case this one tries the next move
+            if(childCounts.compareAndSet(node, childCount, childCount + 1)){
+                return firstChildren[node] + childCount;
+            }
+        }
+    }
+
+    /**
+     * Takes a block of unused nodes from the end of the pool
+     * @param noOfNodes number of nodes needed
+     * @return index of the first node, or -1 if there isn't enough room
+     */
+    private int allocate(int noOfNodes){
+
+        while(true){
+
+            int oldSize = size.get();
+
+            if(oldSize + noOfNodes > capacity){
+                return -1;
+            }
+
+            if(size.compareAndSet(oldSize, oldSize + noOfNodes)){
+                return oldSize;
+            }
+        }
+    }
+
+    /**
+     * Makes room in a full pool, by removing the children (and everything below them) of
+     * the least visited nodes, until no more than half of the pool is used. Must be called
+     * with the write lock held.
+     */
+    public void recycle(){
+
+        int target = Math.max(capacity / 2, 1);
+
+        // another thread may have already made room
+        if(size.get() <= target){
+            return;
+        }
+
+        // nodes visited more times than the threshold keep their children, so the threshold is raised until enough are removed
+        int threshold = 0;
+
+        while(markNodes(0, threshold) > target){
+            threshold = threshold * 2 + 1;
+        }
+
+        compact(threshold);
+    }
+
+    /**
+     * Makes a node the new root, removing every node that isn't below it. Must be called
+     * with the write lock held, or when no other thread is using the pool.
+     * @param node index of the new root
+     */
+    public void reroot(int node){
+
+        markNodes(node, -1);
+        compact(-1);
+        parents[0] = -1;
+        moves[0] = -1;
+    }
+
+    /**
+     * Works out the new index of every node that is kept, in the same order as before.
+     * A node is kept if it is the new root, or its parent is kept and has been visited
+     * more times than the threshold, so the children of a node are all kept or all removed.
+     * @param root index of the node that will be the root
+     * @param threshold number of visits a node needs to keep its children
+     * @return number of nodes kept
+     */
+    private int markNodes(int root, int threshold){
+
+        int oldSize = size.get();
+
+        if(newIndexes == null){
+            newIndexes = new int[capacity];
+        }
+
+        // nodes before the root can't be below it, as children are always stored after their parents
+        Arrays.fill(newIndexes, 0, root, -1);
+
+        int counter = 0;
+
+        for(int node = root; node < oldSize; node++){
+
+            int parent = parents[node];
+
+            if(node == root || (newIndexes[parent] != -1 && visitCounts.get(parent) > threshold)){
+                newIndexes[node] = counter;
+                counter++;
+            } else {
+                newIndexes[node] = -1;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Moves the nodes marked by markNodes() to their new indexes, turning the nodes
+     * whose children were removed back into leaves
+     * @param threshold number of visits a node needed to keep its children
+     */
+    private void compact(int threshold){
+
+        int oldSize = size.get();
+        int counter = 0;
+
+        for(int node = 0; node < oldSize; node++){
+
+            int newIndex = newIndexes[node];
+
+            if(newIndex == -1){
+                continue;
+            }
+
+            // nodes only ever move towards the front, so a node is never overwritten before it has been moved
+            int parent = newIndex == 0 ? -1 : newIndexes[parents[node]];
+
+            parents[newIndex] = parent;
+            moves[newIndex] = moves[node];
+            firstChildren[newIndex] = firstChildren[node];
+            moveCounts.set(newIndex, moveCounts.get(node));
+            childCounts.set(newIndex, childCounts.get(node));
+            visitCounts.set(newIndex, visitCounts.get(node));
+            virtualLosses.set(newIndex, 0);
+            winScores.set(newIndex, winScores.get(node));
+            proofs.set(newIndex, proofs.get(node));
+
+            if(amafVisitCounts != null){
+                amafVisitCounts.set(newIndex, amafVisitCounts.get(node));
+                amafWinScores.set(newIndex, amafWinScores.get(node));
+            }
+
+            if(priors != null){
+                priors[newIndex] = priors[node];
+            }
+
+            // the parent has already been moved, but still has the old index of its first child
+            if(parent != -1 && firstChildren[parent] == node){
+                firstChildren[parent] = newIndex;
+            }
+
+            if(moveCounts.get(newIndex) >= 0 && visitCounts.get(newIndex) <= threshold){
+                firstChildren[newIndex] = -1;
+                moveCounts.set(newIndex, NOT_EXPANDED);
+                childCounts.set(newIndex, 0);
+            }
+
+            counter++;
+        }
+
+        size.set(counter);
+    }
+
+    public TranspositionTable getTranspositionTable(){
+        return this.transpositionTable;
+    }
+
+    public void setTranspositionTable(TranspositionTable transpositionTable){
+        this.transpositionTable = transpositionTable;
+    }
+
+    public int getCapacity(){
+        return this.capacity;
+    }
+
+    public int getSize(){
+        return this.size.get();
+    }
+
+    public int getParent(int node){
+        return parents[node];
+    }
+
+    public int getFirstChild(int node){
+        return firstChildren[node];
+    }
+
+    /**
+     * Checks if a node's moves have been added
+     * @param node index of the node
+     * @return true if the node has been expanded, false for a leaf, or a leaf being expanded
+     */
+    public boolean isExpanded(int node){
+        return moveCounts.get(node) >= 0;
+    }
+
+    /**
+     * Gets the number of moves from a node, including untried moves
+     * @param node index of the node
+     * @return number of moves, 0 for a leaf, or a leaf being expanded
+     */
+    public int getMoveCount(int node){
+        return Math.max(moveCounts.get(node), 0);
+    }
+
+    /**
+     * Gets the number of children of a node, not counting untried moves
+     * @param node index of the node
+     * @return number of children
+     */
+    public int getChildCount(int node){
+        return childCounts.get(node);
+    }
+
+    public int getMove(int node){
+        return moves[node];
+    }
+
+    public int getVisitCount(int node){
+        return visitCounts.get(node);
+    }
+
+    public int getVirtualLoss(int node){
+        return virtualLosses.get(node);
+    }
+
+    public double getWinScore(int node){
+        return Double.longBitsToDouble(winScores.get(node));
+    }
+
+    /**
+     * Adds a number of visits, and their score, to a node
+     * @param node index of the node
+     * @param noOfVisits number of visits
+     * @param score amount to add to the win score
+     */
+    public void addVisits(int node, int noOfVisits, double score){
+
+        visitCounts.addAndGet(node, noOfVisits);
+
+        if(score != 0){
+            addWinScore(node, score);
+        }
+    }
+
+    /**
+     * Adding to the win score of a node, retrying if another thread changes it at the same time
+     * @param node index of the node
+     * @param score amount to add
+     */
+    public void addWinScore(int node, double score){
+
+        long oldBits, newBits;
+
+        do {
+            oldBits = winScores.get(node);
+            newBits = Double.doubleToLongBits(Double.longBitsToDouble(oldBits) + score);
+        } while(!winScores.compareAndSet(node, oldBits, newBits));
+    }
+
+    /**
+     * Sets the win score of a node, but only if it is still 0
+     * @param node index of the node
+     * @param score new win score
+     */
+    public void setWinScoreIfZero(int node, double score){
+        winScores.compareAndSet(node, Double.doubleToLongBits(0), Double.doubleToLongBits(score));
+    }
+
+    public float getPrior(int node){
+        return priors[node];
+    }
+
+    public int getAmafVisitCount(int node){
+        return amafVisitCounts.get(node);
+    }
+
+    public double getAmafWinScore(int node){
+        return Double.longBitsToDouble(amafWinScores.get(node));
+    }
+
+    /**
+     * Adds a number of playouts, where the node's move was played later on by the same
+     * player, and their score, to the all-moves-as-first statistics of a node
+     * @param node index of the node
+     * @param noOfVisits number of playouts
+     * @param score amount to add to the all-moves-as-first win score
+     */
+    public void addAmafVisits(int node, int noOfVisits, double score){
+
+        amafVisitCounts.addAndGet(node, noOfVisits);
+
+        if(score != 0){
+
+            long oldBits, newBits;
+
+            do {
+                oldBits = amafWinScores.get(node);
+                newBits = Double.doubleToLongBits(Double.longBitsToDouble(oldBits) + score);
+            } while(!amafWinScores.compareAndSet(node, oldBits, newBits));
+        }
+    }
+
+    /**
+     * Turns every win score and proof round, to be from the point of view of the other player,
+     * so a tree searched for one player can be used by the other. Must be called with
+     * the write lock held, or when no other thread is using the pool.
+     */
+    public void invertWinScores(){
+
+        for(int node = 0; node < size.get(); node++){
+
+            winScores.set(node, Double.doubleToLongBits(visitCounts.get(node) - getWinScore(node)));
+            proofs.set(node, -proofs.get(node));
+
+            if(amafVisitCounts != null){
+                amafWinScores.set(node, Double.doubleToLongBits(amafVisitCounts.get(node) - getAmafWinScore(node)));
+            }
+        }
+    }
+
+    /**
+     * Gets the proven result of a node
+     * @param node index of the node
+     * @return PROVEN_WIN or PROVEN_LOSS for the root player, or UNPROVEN
+     */
+    public int getProof(int node){
+        return proofs.get(node);
+    }
+
+    public void setProof(int node, int proof){
+        proofs.set(node, proof);
+    }
+
+    public void addVirtualLoss(int node){
+        virtualLosses.incrementAndGet(node);
+    }
+
+    public void removeVirtualLoss(int node){
+        virtualLosses.decrementAndGet(node);
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed table of the squares along each of the 8 queen directions, from
+ * every square on a board of a given size. Squares are referred to by index,
+ * y * columns + x, as in BitBoard. Tables are cached by board size, so each size
+ * is only calculated once, and can be shared between threads.
+ * The directions are in the same order that Board.getValidSquares() has always
+ * checked them: left, right, up, down, left/up, left/down, right/up, right/down.
+ */
+public class QueenRays {
+
+    public static final int NUMBER_OF_DIRECTIONS = 8;
+
+    // x and y steps for each of the 8 queen directions
+    private static final int[] DIRECTION_X = {-1, 1, 0, 0, -1, -1, 1, 1};
+    private static final int[] DIRECTION_Y = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private static final ConcurrentHashMap<Integer, QueenRays> cache = new ConcurrentHashMap<>();
+
+    private int columnBoardSize, rowBoardSize;
+    private int[][] rays; // rays[index * 8 + direction] = square indexes, nearest first
+    private int[] xCoordinates, yCoordinates; // x & y co-ordinates of each square index
+    private int maxReach; // most squares a queen can reach from any square, on an empty board
+
+    private QueenRays(int columnBoardSize, int rowBoardSize){
+
+        this.columnBoardSize = columnBoardSize;
+        this.rowBoardSize = rowBoardSize;
+
+        int numberOfSquares = columnBoardSize * rowBoardSize;
+
+        rays = new int[numberOfSquares * NUMBER_OF_DIRECTIONS][];
+        xCoordinates = new int[numberOfSquares];
+        yCoordinates = new int[numberOfSquares];
+
+        for(int index = 0; index < numberOfSquares; index++){
+
+            int startX = index % columnBoardSize;
+            int startY = index / columnBoardSize;
+
+            xCoordinates[index] = startX;
+            yCoordinates[index] = startY;
+
+            int reach = 0;
+
+            for(int direction = 0; direction < NUMBER_OF_DIRECTIONS; direction++){
+
+                // the ray can't be longer than the board's largest side
+                int[] ray = new int[Math.max(columnBoardSize, rowBoardSize)];
+                int length = 0;
+
+                int x = startX + DIRECTION_X[direction];
+                int y = startY + DIRECTION_Y[direction];
+
+                while(x >= 0 && x < columnBoardSize && y >= 0 && y < rowBoardSize){
+
+                    ray[length] = y * columnBoardSize + x;
+                    length++;
+
+                    x += DIRECTION_X[direction];
+                    y += DIRECTION_Y[direction];
+                }
+
+                rays[index * NUMBER_OF_DIRECTIONS + direction] = Arrays.copyOf(ray, length);
+                reach += length;
+            }
+            maxReach = Math.max(maxReach, reach);
+        }
+    }
+
+    /**
+     * Gets the ray tables for a board size, calculating them the first time the size is used
+     * @param columnBoardSize number of columns
+     * @param rowBoardSize number of rows
+     * @return QueenRays object for the board size
+     */
+    public static QueenRays getQueenRays(int columnBoardSize, int rowBoardSize){
+
+        // board sizes are small, so both fit in one key
+        int key = columnBoardSize << 16 | rowBoardSize;
+
+        return cache.computeIfAbsent(key, k -> new QueenRays(columnBoardSize, rowBoardSize));
+    }
+
+    /**
+     * Gets the squares along one direction from a square, nearest first
+     * @param index index of the square we are starting from
+     * @param direction direction number, 0 - 7
+     * @return array of square indexes, empty if the square is on that edge of the board
+     */
+    public int[] getRay(int index, int direction){
+        return rays[index * NUMBER_OF_DIRECTIONS + direction];
+    }
+
+    public int getX(int index){
+        return xCoordinates[index];
+    }
+
+    public int getY(int index){
+        return yCoordinates[index];
+    }
+
+    /**
+     * Gets the most squares that can be reached from any one square, on an empty board,
+     * which is an upper limit on the number of squares an amazon can move or shoot to
+     * @return largest number of squares reachable from a square
+     */
+    public int getMaxReach(){
+        return this.maxReach;
+    }
+
+    public int getColumnBoardSize(){
+        return this.columnBoardSize;
+    }
+
+    public int getRowBoardSize(){
+        return this.rowBoardSize;
+    }
+}
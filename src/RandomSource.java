@@ -0,0 +1,97 @@
+import java.util.SplittableRandom;
+
+/**
+ * Random numbers for the AIs and simulations, so a run can be repeated exactly by
+ * giving it the same seed. A master seed, set by setSeed(), seeds one stream for each
+ * game, started by newGame(), and each thread draws from its own stream, split from
+ * the game's stream, so threads never share a generator, or need to synchronise.
+ * A thread that starts other threads, such as an MCTS search, should split a stream
+ * for each of them with current().split(), in a fixed order, and have each one call
+ * setCurrent(), so their streams don't depend on the order the threads are scheduled.
+ * Threads that don't are given a stream the first time they call current().
+ * If no seed is set, a random one is used, which getSeed() returns, so the run
+ * can still be repeated afterwards.
+ */
+public class RandomSource {
+
+    private static long seed;
+    private static SplittableRandom masterRandom; // splits a stream for each game
+    private static SplittableRandom gameRandom; // splits a stream for each thread in the current game
+    private static volatile int gameNumber; // changes each game, so threads know their stream is out of date
+
+    private static final ThreadLocal<ThreadStream> threadStreams = new ThreadLocal<>();
+
+    static {
+        setSeed(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Stream of random numbers belonging to one thread, for one game
+     */
+    private static class ThreadStream {
+
+        private int gameNumber;
+        private SplittableRandom random;
+
+        private ThreadStream(int gameNumber, SplittableRandom random){
+
+            this.gameNumber = gameNumber;
+            this.random = random;
+        }
+    }
+
+    /**
+     * Sets the master seed, and starts the first game again, so every
+     * thread's stream is the same as the last time the seed was used
+     * @param seed master seed
+     */
+    public static synchronized void setSeed(long seed){
+
+        RandomSource.seed = seed;
+        masterRandom = new SplittableRandom(seed);
+        gameRandom = masterRandom.split();
+        gameNumber++;
+    }
+
+    public static synchronized long getSeed(){
+        return seed;
+    }
+
+    /**
+     * Moves on to the next game's stream, so each game played after setSeed()
+     * draws different numbers, but the same ones each time the seed is used
+     */
+    public static synchronized void newGame(){
+
+        gameRandom = masterRandom.split();
+        gameNumber++;
+    }
+
+    /**
+     * Gets the calling thread's stream, splitting one from the current
+     * game's stream the first time the thread uses it in each game
+     * @return random number generator, only to be used by the calling thread
+     */
+    public static SplittableRandom current(){
+
+        ThreadStream stream = threadStreams.get();
+
+        if(stream == null || stream.gameNumber != gameNumber){
+
+            synchronized(RandomSource.class){
+                stream = new ThreadStream(gameNumber, gameRandom.split());
+            }
+
+            threadStreams.set(stream);
+        }
+        return stream.random;
+    }
+
+    /**
+     * Gives the calling thread a stream, split for it by the thread that started it
+     * @param random random number generator, only to be used by the calling thread
+     */
+    public static void setCurrent(SplittableRandom random){
+        threadStreams.set(new ThreadStream(gameNumber, random));
+    }
+}
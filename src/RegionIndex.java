@@ -0,0 +1,416 @@
+import java.util.Arrays;
+
+/**
+ * Keeps track of the regions (connected components) of unburnt squares on a BitBoard,
+ * as squares are burnt and un-burnt. A burn can only split the region containing the
+ * burnt square, and un-burning a square can only join the regions around it, so only
+ * those squares are re-labelled, rather than working out every region again as
+ * Board.split() does. Each region also stores its size, bounding box and number of
+ * amazons of each colour, so whether any region is still "contested" (containing
+ * amazons of both colours) can be checked in O(1).
+ * Region numbers are reused once a region disappears, so they are only meaningful
+ * until the next change to the board. Created by BitBoard.trackRegions().
+ * Only MCTS playouts track their regions, with regionCutoff, as they change one board move
+ * by move. Board.evaluate() still splits each board it is given with Board.split(), as it
+ * is called once for each board, so there are no earlier regions to update.
+ */
+public class RegionIndex {
+
+    private BitBoard board;
+    private int columnBoardSize, rowBoardSize;
+
+    private int[] labels; // region number of each square index, -1 for burnt squares
+    private int[] sizes, whitePieces, blackPieces; // number of squares, and amazons of each colour, in each region
+    private int[] minX, minY, maxX, maxY; // bounding box of each region
+
+    private int[] regions; // region numbers currently in use, the first numberOfRegions are valid
+    private int[] regionPositions; // position of each region number in the regions array
+    private int numberOfRegions;
+    private int numberOfContestedRegions;
+
+    private int[] visited; // generation each square was last visited by a flood fill
+    private int generation;
+    private int[] stack; // scratch space for the flood fill
+
+    /**
+     * Works out the regions of a bit board from scratch
+     * @param board BitBoard object to track the regions of
+     */
+    RegionIndex(BitBoard board){
+
+        this.board = board;
+        this.columnBoardSize = board.getColumnBoardSize();
+        this.rowBoardSize = board.getRowBoardSize();
+
+        int numberOfSquares = board.getNumberOfSquares();
+
+        // a board can't have more regions than squares
+        labels = new int[numberOfSquares];
+        sizes = new int[numberOfSquares];
+        whitePieces = new int[numberOfSquares];
+        blackPieces = new int[numberOfSquares];
+        minX = new int[numberOfSquares];
+        minY = new int[numberOfSquares];
+        maxX = new int[numberOfSquares];
+        maxY = new int[numberOfSquares];
+        regions = new int[numberOfSquares];
+        regionPositions = new int[numberOfSquares];
+        visited = new int[numberOfSquares];
+        stack = new int[numberOfSquares];
+
+        // every region number starts off unused
+        for(int region = 0; region < numberOfSquares; region++){
+            regions[region] = region;
+            regionPositions[region] = region;
+        }
+
+        Arrays.fill(labels, -1);
+        generation++;
+
+        for(int index = 0; index < numberOfSquares; index++){
+
+            if(!board.isBurnt(index) && visited[index] != generation){
+
+                int region = newRegion();
+                fill(index, region);
+                countContested(region, 1);
+            }
+        }
+    }
+
+    /**
+     * Constructor used for copying, so the copy can be kept up to date for a different bit board
+     * @param other RegionIndex object to copy
+     * @param board copy of the bit board the other RegionIndex tracks
+     */
+    private RegionIndex(RegionIndex other, BitBoard board){
+
+        this.board = board;
+        this.columnBoardSize = other.columnBoardSize;
+        this.rowBoardSize = other.rowBoardSize;
+        this.labels = other.labels.clone();
+        this.sizes = other.sizes.clone();
+        this.whitePieces = other.whitePieces.clone();
+        this.blackPieces = other.blackPieces.clone();
+        this.minX = other.minX.clone();
+        this.minY = other.minY.clone();
+        this.maxX = other.maxX.clone();
+        this.maxY = other.maxY.clone();
+        this.regions = other.regions.clone();
+        this.regionPositions = other.regionPositions.clone();
+        this.numberOfRegions = other.numberOfRegions;
+        this.numberOfContestedRegions = other.numberOfContestedRegions;
+        this.visited = new int[other.visited.length];
+        this.stack = new int[other.stack.length];
+    }
+
+    /**
+     * Makes a copy of this region index, for a copy of its bit board
+     * @param board copied BitBoard object
+     * @return copied RegionIndex object
+     */
+    RegionIndex copy(BitBoard board){
+        return new RegionIndex(this, board);
+    }
+
+    /**
+     * Called by the bit board after a square is burnt, splitting its region if needed
+     * @param index index of the square that was burnt
+     */
+    void squareBurnt(int index){
+
+        int region = labels[index];
+        labels[index] = -1;
+
+        countContested(region, -1);
+        generation++;
+
+        boolean firstPart = true;
+        int x = index % columnBoardSize;
+        int y = index / columnBoardSize;
+
+        // each neighbour that the earlier flood fills didn't reach is in a new region
+        for(int neighbourX = Math.max(x - 1, 0); neighbourX <= Math.min(x + 1, columnBoardSize - 1); neighbourX++){
+            for(int neighbourY = Math.max(y - 1, 0); neighbourY <= Math.min(y + 1, rowBoardSize - 1); neighbourY++){
+
+                int neighbour = neighbourY * columnBoardSize + neighbourX;
+
+                if(labels[neighbour] == region && visited[neighbour] != generation){
+
+                    // the first part keeps the old region number
+                    int newRegion = firstPart ? region : newRegion();
+                    firstPart = false;
+
+                    fill(neighbour, newRegion);
+                    countContested(newRegion, 1);
+                }
+            }
+        }
+
+        // the burnt square was the only square left in its region
+        if(firstPart){
+            removeRegion(region);
+        }
+    }
+
+    /**
+     * Called by the bit board after a burn is removed, joining the regions around the square
+     * @param index index of the square that was un-burnt
+     */
+    void squareUnburnt(int index){
+
+        int joinedRegion = -1;
+        int x = index % columnBoardSize;
+        int y = index / columnBoardSize;
+
+        for(int neighbourX = Math.max(x - 1, 0); neighbourX <= Math.min(x + 1, columnBoardSize - 1); neighbourX++){
+            for(int neighbourY = Math.max(y - 1, 0); neighbourY <= Math.min(y + 1, rowBoardSize - 1); neighbourY++){
+
+                int region = labels[neighbourY * columnBoardSize + neighbourX];
+
+                // the first region found is kept, any others are joined on to it by the flood fill
+                if(region == -1 || region == joinedRegion || regionPositions[region] >= numberOfRegions){
+                    continue;
+                }
+
+                countContested(region, -1);
+
+                if(joinedRegion == -1){
+                    joinedRegion = region;
+                } else {
+                    removeRegion(region);
+                }
+            }
+        }
+
+        // a square with no unburnt neighbours is a region of its own
+        if(joinedRegion == -1){
+            joinedRegion = newRegion();
+        }
+
+        generation++;
+        fill(index, joinedRegion);
+        countContested(joinedRegion, 1);
+    }
+
+    /**
+     * Called by the bit board after an amazon is added to or removed from a square
+     * @param index index of the square
+     * @param isWhite colour of the amazon, true for white, false for black
+     * @param change 1 if the amazon was added, -1 if it was removed
+     */
+    void pieceChanged(int index, boolean isWhite, int change){
+
+        int region = labels[index];
+
+        if(region == -1){
+            return;
+        }
+
+        countContested(region, -1);
+
+        if(isWhite){
+            whitePieces[region] += change;
+        } else {
+            blackPieces[region] += change;
+        }
+
+        countContested(region, 1);
+    }
+
+    /**
+     * Flood fills from a square through every unburnt square it can reach, giving them
+     * all the same region number, and working out the region's size, bounding box and pieces
+     * @param start index of an unburnt square
+     * @param region region number to give the squares
+     */
+    private void fill(int start, int region){
+
+        sizes[region] = 0;
+        whitePieces[region] = 0;
+        blackPieces[region] = 0;
+        minX[region] = columnBoardSize;
+        minY[region] = rowBoardSize;
+        maxX[region] = -1;
+        maxY[region] = -1;
+
+        visited[start] = generation;
+        stack[0] = start;
+        int stackSize = 1;
+
+        while(stackSize > 0){
+
+            stackSize--;
+            int index = stack[stackSize];
+            int x = index % columnBoardSize;
+            int y = index / columnBoardSize;
+
+            labels[index] = region;
+            sizes[region]++;
+
+            if(board.hasPiece(index, true)){
+                whitePieces[region]++;
+            } else if(board.hasPiece(index, false)){
+                blackPieces[region]++;
+            }
+
+            minX[region] = Math.min(minX[region], x);
+            minY[region] = Math.min(minY[region], y);
+            maxX[region] = Math.max(maxX[region], x);
+            maxY[region] = Math.max(maxY[region], y);
+
+            // adding each unvisited, unburnt neighbour, diagonals also count
+            for(int neighbourX = Math.max(x - 1, 0); neighbourX <= Math.min(x + 1, columnBoardSize - 1); neighbourX++){
+                for(int neighbourY = Math.max(y - 1, 0); neighbourY <= Math.min(y + 1, rowBoardSize - 1); neighbourY++){
+
+                    int neighbour = neighbourY * columnBoardSize + neighbourX;
+
+                    if(visited[neighbour] != generation && !board.isBurnt(neighbour)){
+
+                        visited[neighbour] = generation;
+                        stack[stackSize] = neighbour;
+                        stackSize++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes an unused region number, and marks it as in use
+     * @return new region number
+     */
+    private int newRegion(){
+
+        int region = regions[numberOfRegions];
+        numberOfRegions++;
+        return region;
+    }
+
+    /**
+     * Marks a region number as unused, by swapping it with the last region in use
+     * @param region region number to remove
+     */
+    private void removeRegion(int region){
+
+        numberOfRegions--;
+
+        int position = regionPositions[region];
+        int lastRegion = regions[numberOfRegions];
+
+        regions[position] = lastRegion;
+        regionPositions[lastRegion] = position;
+        regions[numberOfRegions] = region;
+        regionPositions[region] = numberOfRegions;
+    }
+
+    /**
+     * Adds or removes a region from the count of contested regions, if it is contested
+     * @param region region number
+     * @param change 1 to add the region, -1 to remove it
+     */
+    private void countContested(int region, int change){
+
+        if(isContested(region)){
+            numberOfContestedRegions += change;
+        }
+    }
+
+    public int getNumberOfRegions(){
+        return this.numberOfRegions;
+    }
+
+    /**
+     * Gets one of the regions currently on the board
+     * @param i position of the region, less than getNumberOfRegions()
+     * @return region number
+     */
+    public int getRegion(int i){
+        return regions[i];
+    }
+
+    /**
+     * Gets the region that a square belongs to
+     * @param index index of the square
+     * @return region number, or -1 if the square is burnt
+     */
+    public int getRegionOf(int index){
+        return labels[index];
+    }
+
+    public int getSize(int region){
+        return sizes[region];
+    }
+
+    /**
+     * Gets the number of amazons of a given colour in a region
+     * @param region region number
+     * @param isWhite indicates what colour to check, true for white, false for black
+     * @return number of amazons of that colour in the region
+     */
+    public int getNumberOfPieces(int region, boolean isWhite){
+        return isWhite ? whitePieces[region] : blackPieces[region];
+    }
+
+    /**
+     * Checks if a region contains amazons of both colours, so the players are still fighting over it
+     * @param region region number
+     * @return true if contested, false otherwise
+     */
+    public boolean isContested(int region){
+        return whitePieces[region] > 0 && blackPieces[region] > 0;
+    }
+
+    public int getNumberOfContestedRegions(){
+        return this.numberOfContestedRegions;
+    }
+
+    /**
+     * Checks if any region on the board is still contested. Once none are, each player
+     * can only move within their own regions, and the game is decided by the squares left in them.
+     * @return true if at least one region is contested, false otherwise
+     */
+    public boolean hasContestedRegion(){
+        return numberOfContestedRegions > 0;
+    }
+
+    public int getMinX(int region){
+        return minX[region];
+    }
+
+    public int getMinY(int region){
+        return minY[region];
+    }
+
+    public int getMaxX(int region){
+        return maxX[region];
+    }
+
+    public int getMaxY(int region){
+        return maxY[region];
+    }
+
+    /**
+     * Stores the indexes of all the squares in a region in the array given
+     * @param region region number
+     * @param squares array to store the square indexes in, must be large enough for the whole region
+     * @return the number of squares in the region
+     */
+    public int getSquares(int region, int[] squares){
+
+        int counter = 0;
+
+        for(int y = minY[region]; y <= maxY[region]; y++){
+            for(int x = minX[region]; x <= maxX[region]; x++){
+
+                int index = y * columnBoardSize + x;
+
+                if(labels[index] == region){
+                    squares[counter] = index;
+                    counter++;
+                }
+            }
+        }
+        return counter;
+    }
+}
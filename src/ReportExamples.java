@@ -162,7 +162,7 @@ public class ReportExamples {
 
         Board.SmallestHashValue smallestHashValue = board.getSmallestHashValue();
 
-        smallestHashValue.board.printBoard();
+        smallestHashValue.getBoard().printBoard();
 
         System.out.println("smallest hash value = " + smallestHashValue.hashValue);
         System.out.println("transformation used = " + smallestHashValue.transformation);
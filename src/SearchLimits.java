@@ -0,0 +1,80 @@
+/**
+ * Limits on how long an MCTS search runs for. A search stops as soon as any limit is
+ * reached: the time allowed, the number of playouts, the number of nodes in the tree,
+ * or stop() being called from another thread. A limit of 0 means no limit, so a search
+ * with no limits set runs until it is stopped.
+ */
+public class SearchLimits {
+
+    private long maxTime; // milliseconds
+    private long maxPlayouts;
+    private int maxNodes;
+    private volatile boolean stopped;
+
+    public SearchLimits(){
+    }
+
+    /**
+     * Creates limits that only limit the time
+     * @param maxTime milliseconds the search is allowed
+     */
+    public SearchLimits(long maxTime){
+        this.maxTime = maxTime;
+    }
+
+    public long getMaxTime(){
+        return this.maxTime;
+    }
+
+    /**
+     * Sets the time the search is allowed
+     * @param maxTime milliseconds, or 0 for no limit
+     */
+    public void setMaxTime(long maxTime){
+        this.maxTime = maxTime;
+    }
+
+    public long getMaxPlayouts(){
+        return this.maxPlayouts;
+    }
+
+    /**
+     * Sets the number of playouts the search is allowed
+     * @param maxPlayouts number of playouts, or 0 for no limit
+     */
+    public void setMaxPlayouts(long maxPlayouts){
+        this.maxPlayouts = maxPlayouts;
+    }
+
+    public int getMaxNodes(){
+        return this.maxNodes;
+    }
+
+    /**
+     * Sets the number of nodes the search tree can grow to. Unlike MCTS.setMaxNodes(),
+     * the search stops once the tree is this big, rather than throwing nodes away.
+     * @param maxNodes number of nodes, or 0 for no limit
+     */
+    public void setMaxNodes(int maxNodes){
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Stops any search using these limits, which can be called from any thread.
+     * The limits stay stopped until reset() is called.
+     */
+    public void stop(){
+        this.stopped = true;
+    }
+
+    public boolean isStopped(){
+        return this.stopped;
+    }
+
+    /**
+     * Clears a stop, so the limits can be used for another search
+     */
+    public void reset(){
+        this.stopped = false;
+    }
+}
@@ -1,5 +1,4 @@
 import java.util.ArrayList;
-import java.util.Random;
 
 /**
  * Used throughout development to test how different
@@ -59,6 +58,9 @@ public class SimulatePartitions {
                 partition.printBoard();
             }
 
+            // each game draws from its own stream, so any one of them can be replayed from the seed
+            RandomSource.newGame();
+
             if(simulateGame(partition, partitionPlayers.get(0), partitionPlayers)){
                 whiteWins++;
             }
@@ -362,8 +364,7 @@ public class SimulatePartitions {
      * @return random number
      */
     private int getRandomNumber(int max){
-        Random rand = new Random();
-        return rand.nextInt(max) + 1;
+        return RandomSource.current().nextInt(max) + 1;
     }
 
     /**
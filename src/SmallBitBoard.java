@@ -0,0 +1,243 @@
+/**
+ * Bit board for boards with up to 64 squares (e.g. 6x6 or 8x8), where
+ * each plane fits in a single long. Valid squares are found by shifting
+ * along each of the 8 queen directions, rather than visiting each square.
+ */
+public class SmallBitBoard extends BitBoard {
+
+    private long burnt, white, black; // bit planes, bit i set if square i is burnt / has an amazon
+    private long boardMask; // bits for every square on the board
+    private long notFirstColumnMask, notLastColumnMask; // used to stop shifts wrapping onto the next row
+
+    public SmallBitBoard(int columnBoardSize, int rowBoardSize){
+
+        super(columnBoardSize, rowBoardSize);
+
+        boardMask = numberOfSquares == 64 ? -1L : (1L << numberOfSquares) - 1;
+
+        long firstColumn = 0;
+        long lastColumn = 0;
+
+        for(int y = 0; y < rowBoardSize; y++){
+            firstColumn |= 1L << getIndex(0, y);
+            lastColumn |= 1L << getIndex(columnBoardSize - 1, y);
+        }
+
+        notFirstColumnMask = boardMask & ~firstColumn;
+        notLastColumnMask = boardMask & ~lastColumn;
+    }
+
+    /**
+     * Constructor used for copying, so the masks don't need to be calculated again
+     * @param other SmallBitBoard object to copy
+     */
+    private SmallBitBoard(SmallBitBoard other){
+
+        super(other.columnBoardSize, other.rowBoardSize);
+
+        this.zobristKey = other.zobristKey;
+        this.burnt = other.burnt;
+        this.white = other.white;
+        this.black = other.black;
+        this.boardMask = other.boardMask;
+        this.notFirstColumnMask = other.notFirstColumnMask;
+        this.notLastColumnMask = other.notLastColumnMask;
+    }
+
+    @Override
+    public boolean isBurnt(int index){
+        return (burnt >>> index & 1L) != 0;
+    }
+
+    @Override
+    public boolean hasPiece(int index, boolean isWhite){
+
+        long pieces = isWhite ? white : black;
+        return (pieces >>> index & 1L) != 0;
+    }
+
+    @Override
+    public boolean isSquareEmpty(int index){
+        return ((burnt | white | black) >>> index & 1L) == 0;
+    }
+
+    @Override
+    protected void setBurnt(int index, boolean isBurnt){
+
+        if(isBurnt){
+            burnt |= 1L << index;
+        } else {
+            burnt &= ~(1L << index);
+        }
+    }
+
+    @Override
+    protected void setPiece(int index, boolean isWhite, boolean hasPiece){
+
+        if(isWhite){
+            white = hasPiece ? white | 1L << index : white & ~(1L << index);
+        } else {
+            black = hasPiece ? black | 1L << index : black & ~(1L << index);
+        }
+    }
+
+    @Override
+    public int getPieces(boolean isWhite, int[] pieces){
+
+        long remaining = isWhite ? white : black;
+        int counter = 0;
+
+        // taking the lowest set bit each time, until none are left
+        while(remaining != 0){
+
+            pieces[counter] = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            counter++;
+        }
+        return counter;
+    }
+
+    @Override
+    public int getNumberOfPieces(boolean isWhite){
+        return Long.bitCount(isWhite ? white : black);
+    }
+
+    /**
+     * Slides a single bit along one direction, until it reaches a square that isn't empty
+     * @param start bit of the square we are starting from
+     * @param empty bits of the squares that can be moved through
+     * @param shift number of places to shift each step, negative for a right shift
+     * @param wrapMask bits that the slide is allowed to land on, to prevent wrapping between rows
+     * @return bits of every square reached along the direction
+     */
+    private static long slide(long start, long empty, int shift, long wrapMask){
+
+        long reached = 0;
+        long current = start;
+
+        while(true){
+
+            current = (shift > 0 ? current << shift : current >>> -shift) & wrapMask & empty;
+
+            if(current == 0){
+                return reached;
+            }
+            reached |= current;
+        }
+    }
+
+    /**
+     * Gets the bits of all squares that can be moved to according to amazons rules, from a starting square
+     * @param startIndex index of the square we are starting from
+     * @param skipIndex index of a square that should be treated as empty, or -1
+     * @return bits of the squares that can be moved to
+     */
+    public long getValidSquaresMask(int startIndex, int skipIndex){
+
+        long start = 1L << startIndex;
+        long empty = ~(burnt | white | black) & boardMask;
+
+        if(skipIndex >= 0){
+            empty |= 1L << skipIndex;
+        }
+
+        // checking left and right
+        long validSquares = slide(start, empty, -1, notLastColumnMask)
+                | slide(start, empty, 1, notFirstColumnMask);
+
+        // a single row board can't be moved up, down or diagonally
+        if(rowBoardSize > 1){
+
+            // checking up and down
+            validSquares |= slide(start, empty, columnBoardSize, boardMask)
+                    | slide(start, empty, -columnBoardSize, boardMask);
+
+            // checking left/up, left/down, right/up and right/down
+            validSquares |= slide(start, empty, columnBoardSize - 1, notLastColumnMask)
+                    | slide(start, empty, -columnBoardSize - 1, notLastColumnMask)
+                    | slide(start, empty, columnBoardSize + 1, notFirstColumnMask)
+                    | slide(start, empty, -columnBoardSize + 1, notFirstColumnMask);
+        }
+        return validSquares;
+    }
+
+    @Override
+    public int getValidSquares(int startIndex, int skipIndex, int[] validSquares){
+
+        long remaining = getValidSquaresMask(startIndex, skipIndex);
+        int counter = 0;
+
+        while(remaining != 0){
+
+            validSquares[counter] = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            counter++;
+        }
+        return counter;
+    }
+
+    @Override
+    public int countValidSquares(int startIndex, int skipIndex){
+        return Long.bitCount(getValidSquaresMask(startIndex, skipIndex));
+    }
+
+    @Override
+    public int countMoves(boolean isWhite){
+
+        long remainingPieces = isWhite ? white : black;
+        int moves = 0;
+
+        while(remainingPieces != 0){
+
+            int start = Long.numberOfTrailingZeros(remainingPieces);
+            remainingPieces &= remainingPieces - 1;
+
+            long remainingEndSquares = getValidSquaresMask(start, -1);
+
+            // each square that can be shot at, from each end square, is a separate move
+            while(remainingEndSquares != 0){
+
+                int end = Long.numberOfTrailingZeros(remainingEndSquares);
+                remainingEndSquares &= remainingEndSquares - 1;
+
+                moves += Long.bitCount(getValidSquaresMask(end, start));
+            }
+        }
+        return moves;
+    }
+
+    @Override
+    public boolean hasAnyMove(boolean isWhite){
+
+        long pieces = isWhite ? white : black;
+        long empty = ~(burnt | white | black) & boardMask;
+
+        // shifting every piece one square in each direction at once
+        long neighbours = (pieces >>> 1 & notLastColumnMask) | (pieces << 1 & notFirstColumnMask);
+
+        if(rowBoardSize > 1){
+
+            neighbours |= pieces << columnBoardSize | pieces >>> columnBoardSize
+                    | (pieces << (columnBoardSize - 1) & notLastColumnMask)
+                    | (pieces >>> (columnBoardSize + 1) & notLastColumnMask)
+                    | (pieces << (columnBoardSize + 1) & notFirstColumnMask)
+                    | (pieces >>> (columnBoardSize - 1) & notFirstColumnMask);
+        }
+        return (neighbours & empty) != 0;
+    }
+
+    @Override
+    public boolean allSquaresBurnt(){
+        return burnt == boardMask;
+    }
+
+    @Override
+    public int getNumberOfEmptySquares(){
+        return numberOfSquares - Long.bitCount(burnt | white | black);
+    }
+
+    @Override
+    protected BitBoard copyBits(){
+        return new SmallBitBoard(this);
+    }
+}
@@ -7,10 +7,17 @@ import java.io.Serializable;
  */
 public class Square implements Serializable {
 
+    // fixed, so squares already stored in the endgame database can still be read
+    private static final long serialVersionUID = -3695875152492474069L;
+
     private Piece amazon;
     private boolean burnt;
     private int x, y;
 
+    // board that owns this square, which is told about any changes so it can update its zobrist keys
+    private transient Board board;
+    private transient int index; // index of this square on that board, which doesn't change with x & y
+
     public Square(int x, int y, Piece amazon, boolean burnt) {
         this.amazon = amazon;
         this.burnt = burnt;
@@ -18,12 +25,36 @@ public class Square implements Serializable {
         this.y = y;
     }
 
+    /**
+     * Attaches this square to the board that owns it, or detaches it if board is null
+     * @param board Board object that owns the square
+     * @param index index of the square on the board, y * columns + x
+     */
+    void setBoard(Board board, int index){
+        this.board = board;
+        this.index = index;
+    }
+
+    /**
+     * Tells the owning board how this square has changed, so it can update its zobrist keys
+     * @param oldBurnt true if the square was burnt before it was changed
+     * @param oldAmazon Piece that was on the square before it was changed, or null
+     */
+    private void updateBoardKeys(boolean oldBurnt, Piece oldAmazon){
+
+        if(board != null){
+            board.updateZobristKeys(index, oldBurnt, oldAmazon, burnt, amazon);
+        }
+    }
+
     public Piece getAmazon(){
         return this.amazon;
     }
 
     public void setAmazon(Piece amazon){
+        Piece oldAmazon = this.amazon;
         this.amazon = amazon;
+        updateBoardKeys(burnt, oldAmazon);
     }
 
     public boolean isBurnt(){
@@ -31,10 +62,16 @@ public class Square implements Serializable {
     }
 
     public void burnSquare(){
+        boolean oldBurnt = this.burnt;
         this.burnt = true;
+        updateBoardKeys(oldBurnt, amazon);
     }
 
-    public void removeAmazon(){ this.amazon = null;}
+    public void removeAmazon(){
+        Piece oldAmazon = this.amazon;
+        this.amazon = null;
+        updateBoardKeys(burnt, oldAmazon);
+    }
 
     public int getX(){
         return this.x;
@@ -52,7 +89,6 @@ public class Square implements Serializable {
         this.y = y;
     }
 
-    
+
 
 }
-  
@@ -0,0 +1,177 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Visit counts and win scores for board positions, keyed by zobrist key, so that MCTS
+ * nodes reached by different orders of the same moves can share their statistics,
+ * turning the search tree into a graph.
+ * The table has a fixed number of entries, in buckets of 2. The first entry of a bucket
+ * keeps the position with the most visits, and the second always takes the newest
+ * position, so positions near the root, which are visited most, stay in the table.
+ * Entries are updated with atomics, without locking, so if two threads replace the same
+ * entry at once its statistics can be slightly off, which only affects move ordering.
+ */
+public class TranspositionTable {
+
+    private int mask; // number of buckets - 1, the number of buckets is a power of 2
+
+    private AtomicLongArray keys; // zobrist key of the position in each entry, 0 for empty entries
+    private AtomicIntegerArray visitCounts;
+    private AtomicLongArray winScores; // bits of a double, as there is no AtomicDoubleArray
+
+    /**
+     * Creates an empty table
+     * @param size maximum number of entries, rounded down to a power of 2, at least 2
+     */
+    public TranspositionTable(int size){
+
+        int noOfBuckets = Integer.highestOneBit(Math.max(size / 2, 1));
+
+        mask = noOfBuckets - 1;
+        keys = new AtomicLongArray(noOfBuckets * 2);
+        visitCounts = new AtomicIntegerArray(noOfBuckets * 2);
+        winScores = new AtomicLongArray(noOfBuckets * 2);
+    }
+
+    /**
+     * Gets the first entry of the bucket for a key. The low bits of zobrist keys are
+     * as random as the high bits, so they are used directly.
+     * @param key zobrist key
+     * @return index of the first entry in the bucket
+     */
+    private int getBucket(long key){
+        return ((int) key & mask) * 2;
+    }
+
+    /**
+     * Finds the entry for a position
+     * @param key zobrist key of the position
+     * @return index of the entry, or -1 if the position isn't in the table
+     */
+    public int find(long key){
+
+        int entry = getBucket(key);
+
+        if(keys.get(entry) == key){
+            return entry;
+        } else if(keys.get(entry + 1) == key){
+            return entry + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a number of visits, and their score, to the entry for a position,
+     * making a new entry if the position isn't already in the table
+     * @param key zobrist key of the position
+     * @param noOfVisits number of visits
+     * @param score amount to add to the win score
+     */
+    public void addVisits(long key, int noOfVisits, double score){
+        addVisits(key, noOfVisits, score, noOfVisits, score);
+    }
+
+    /**
+     * Adds a number of visits, and their score, to the entry for a position. If the
+     * position isn't in the table, which may be because its entry was replaced, the
+     * new entry starts off with the statistics of the node being updated instead, so
+     * a well visited node doesn't suddenly look like it has only just been visited.
+     * @param key zobrist key of the position
+     * @param noOfVisits number of visits
+     * @param score amount to add to the win score
+     * @param nodeVisitCount visit count of the node, including the visits being added
+     * @param nodeWinScore win score of the node, including the score being added
+     */
+    public void addVisits(long key, int noOfVisits, double score, int nodeVisitCount, double nodeWinScore){
+
+        int entry = find(key);
+
+        if(entry == -1){
+
+            int bucket = getBucket(key);
+
+            // the position replaces the first entry if it has been visited less, or the second otherwise
+            entry = visitCounts.get(bucket) <= nodeVisitCount ? bucket : bucket + 1;
+
+            keys.set(entry, key);
+            visitCounts.set(entry, nodeVisitCount);
+            winScores.set(entry, Double.doubleToLongBits(nodeWinScore));
+            return;
+        }
+
+        visitCounts.addAndGet(entry, noOfVisits);
+
+        if(score != 0){
+
+            long oldBits, newBits;
+
+            do {
+                oldBits = winScores.get(entry);
+                newBits = Double.doubleToLongBits(Double.longBitsToDouble(oldBits) + score);
+            } while(!winScores.compareAndSet(entry, oldBits, newBits));
+        }
+
+        // keeping the most visited position in the first entry of the bucket
+        int first = entry & ~1;
+
+        if(entry != first && visitCounts.get(entry) > visitCounts.get(first)){
+            swap(first, entry);
+        }
+    }
+
+    /**
+     * Swaps the two entries of a bucket
+     * @param first index of the first entry
+     * @param second index of the second entry
+     */
+    private void swap(int first, int second){
+
+        long key = keys.get(first);
+        int visitCount = visitCounts.get(first);
+        long winScore = winScores.get(first);
+
+        keys.set(first, keys.get(second));
+        visitCounts.set(first, visitCounts.get(second));
+        winScores.set(first, winScores.get(second));
+
+        keys.set(second, key);
+        visitCounts.set(second, visitCount);
+        winScores.set(second, winScore);
+    }
+
+    public int getVisitCount(int entry){
+        return visitCounts.get(entry);
+    }
+
+    public double getWinScore(int entry){
+        return Double.longBitsToDouble(winScores.get(entry));
+    }
+
+    /**
+     * Sets the win score of an entry, but only if it is still 0
+     * @param entry index of the entry
+     * @param score new win score
+     */
+    public void setWinScoreIfZero(int entry, double score){
+        winScores.compareAndSet(entry, Double.doubleToLongBits(0), Double.doubleToLongBits(score));
+    }
+
+    /**
+     * Turns every win score round, to be from the point of view of the other player.
+     * Must only be called when no other thread is using the table.
+     */
+    public void invertWinScores(){
+
+        for(int entry = 0; entry < keys.length(); entry++){
+            winScores.set(entry, Double.doubleToLongBits(visitCounts.get(entry) - getWinScore(entry)));
+        }
+    }
+
+    /**
+     * Gets the number of entries in the table
+     * @return number of entries
+     */
+    public int getSize(){
+        return keys.length();
+    }
+}
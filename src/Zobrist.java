@@ -0,0 +1,169 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zobrist hashing keys for Amazons boards of a given size. Every square state (burnt,
+ * white amazon or black amazon) on every square has a random 64-bit key, and a board's
+ * key is the XOR of the keys of its non-empty squares, together with a key for the
+ * board's size. As XOR undoes itself, a board's key can be updated in O(1) each time
+ * a square changes, rather than rescanning the board.
+ * Squares are referred to by index, y * columns + x, as in BitBoard. The keys are
+ * generated from a fixed seed, so a board has the same key every time the program
+ * is run, and are cached by board size, so they can be shared between threads.
+ * Also stores where each square ends up under each of the board's symmetry
+ * transformations, so the keys of every transformed board can be kept up to date
+ * without building the transformed boards.
+ */
+public class Zobrist {
+
+    private static final long SEED = 0x416D617A6F6E73L; // "Amazons"
+
+    public static final int NUMBER_OF_TRANSFORMATIONS = 8;
+
+    private static final ConcurrentHashMap<Integer, Zobrist> cache = new ConcurrentHashMap<>();
+
+    private long[] burntKeys, whiteKeys, blackKeys; // key for each square index, in each state
+    private long sizeKey;
+    private int numberOfTransformations; // 8 for square boards, 4 otherwise, as rotating changes the shape
+    private int[][] transformedIndexes; // transformedIndexes[transformation][index] = index after transforming
+
+    private Zobrist(int columnBoardSize, int rowBoardSize){
+
+        int numberOfSquares = columnBoardSize * rowBoardSize;
+
+        // each board size has its own sequence of keys, so boards of different sizes don't share keys
+        SplittableRandom random = new SplittableRandom(SEED ^ ((long) columnBoardSize << 32 | rowBoardSize));
+
+        burntKeys = new long[numberOfSquares];
+        whiteKeys = new long[numberOfSquares];
+        blackKeys = new long[numberOfSquares];
+
+        for(int index = 0; index < numberOfSquares; index++){
+            burntKeys[index] = random.nextLong();
+            whiteKeys[index] = random.nextLong();
+            blackKeys[index] = random.nextLong();
+        }
+
+        sizeKey = random.nextLong();
+
+        numberOfTransformations = columnBoardSize == rowBoardSize ? NUMBER_OF_TRANSFORMATIONS : 4;
+        transformedIndexes = new int[numberOfTransformations][numberOfSquares];
+
+        for(int transformation = 0; transformation < numberOfTransformations; transformation++){
+            for(int index = 0; index < numberOfSquares; index++){
+
+                transformedIndexes[transformation][index] = transformIndex(transformation,
+                        index % columnBoardSize, index / columnBoardSize, columnBoardSize, rowBoardSize);
+            }
+        }
+    }
+
+    /**
+     * Works out where a square ends up after one of the transformations used by
+     * Board.getSmallestHashValue(). Transformations 4 - 7 swap the number of rows and
+     * columns, so are only used for square boards, where the index is still y * columns + x.
+     * 0 = none, 1 = flipHorizontal(), 2 = flipVertical(), 3 = rotate() twice, 4 = rotate(),
+     * 5 = rotate() three times, 6 = rotate() then flipVertical(),
+     * 7 = rotate() three times then flipVertical()
+     * @param transformation transformation number, 0 - 7
+     * @param x square x co-ordinate
+     * @param y square y co-ordinate
+     * @param columns number of columns
+     * @param rows number of rows
+     * @return index of the square on the transformed board
+     */
+    private static int transformIndex(int transformation, int x, int y, int columns, int rows){
+
+        int newX, newY;
+
+        switch(transformation){
+            case 1: newX = columns - 1 - x; newY = y; break;
+            case 2: newX = x; newY = rows - 1 - y; break;
+            case 3: newX = columns - 1 - x; newY = rows - 1 - y; break;
+            case 4: newX = rows - 1 - y; newY = x; break;
+            case 5: newX = y; newY = columns - 1 - x; break;
+            case 6: newX = rows - 1 - y; newY = columns - 1 - x; break;
+            case 7: newX = y; newY = x; break;
+            default: newX = x; newY = y; break;
+        }
+        return newY * columns + newX;
+    }
+
+    /**
+     * Gets the keys for a board size, calculating them the first time the size is used
+     * @param columnBoardSize number of columns
+     * @param rowBoardSize number of rows
+     * @return Zobrist object for the board size
+     */
+    public static Zobrist getZobrist(int columnBoardSize, int rowBoardSize){
+
+        // board sizes are small, so both fit in one key
+        int key = columnBoardSize << 16 | rowBoardSize;
+
+        return cache.computeIfAbsent(key, k -> new Zobrist(columnBoardSize, rowBoardSize));
+    }
+
+    /**
+     * Gets the key for a square in a given state. Burnt squares take priority over pieces,
+     * and empty squares have a key of 0, so they don't change the board key.
+     * @param index index of the square
+     * @param burnt true if the square is burnt
+     * @param amazon Piece on the square, or null
+     * @return key for the square
+     */
+    public long getSquareKey(int index, boolean burnt, Piece amazon){
+
+        if(burnt){
+            return burntKeys[index];
+        } else if(amazon == null){
+            return 0;
+        } else {
+            return getPieceKey(index, amazon.isWhite());
+        }
+    }
+
+    public long getBurntKey(int index){
+        return burntKeys[index];
+    }
+
+    public long getPieceKey(int index, boolean isWhite){
+        return isWhite ? whiteKeys[index] : blackKeys[index];
+    }
+
+    /**
+     * Gets the change in a board's key when a packed move is played, which is the same
+     * whatever else is on the board, so the key after a move can be worked out without
+     * playing it. XORing it again gives the key before the move.
+     * @param move packed move, from MoveGenerator
+     * @param isWhite colour of the amazon being moved, true for white, false for black
+     * @return key to XOR with the board's key
+     */
+    public long getMoveKey(int move, boolean isWhite){
+
+        return getPieceKey(MoveGenerator.getStart(move), isWhite)
+                ^ getPieceKey(MoveGenerator.getEnd(move), isWhite)
+                ^ burntKeys[MoveGenerator.getShot(move)];
+    }
+
+    /**
+     * Gets the index of a square after a transformation, see transformIndex()
+     * @param transformation transformation number, less than getNumberOfTransformations()
+     * @param index index of the square
+     * @return index of the square on the transformed board
+     */
+    public int getTransformedIndex(int transformation, int index){
+        return transformedIndexes[transformation][index];
+    }
+
+    public int getNumberOfTransformations(){
+        return this.numberOfTransformations;
+    }
+
+    /**
+     * Gets the key for the board size, which is the key of an empty board
+     * @return key for the board size
+     */
+    public long getSizeKey(){
+        return this.sizeKey;
+    }
+}